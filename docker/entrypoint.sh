@@ -0,0 +1,23 @@
+#!/bin/sh
+# Запуск приложения с настройками памяти под лимиты контейнера.
+# JAVA_GC: G1 (по умолчанию), ZGC или Shenandoah; JAVA_OPTS дописывается последним и может переопределить любой флаг.
+set -e
+
+case "$JAVA_GC" in
+  ZGC)        GC_OPTS="-XX:+UnlockExperimentalVMOptions -XX:+UseZGC" ;;
+  Shenandoah) GC_OPTS="-XX:+UnlockExperimentalVMOptions -XX:+UseShenandoahGC" ;;
+  *)          GC_OPTS="-XX:+UseG1GC -XX:MaxGCPauseMillis=100" ;;
+esac
+
+exec java \
+  -XX:+UseContainerSupport \
+  -XX:MaxRAMPercentage="$JAVA_MAX_RAM_PERCENTAGE" \
+  -XX:InitialRAMPercentage=25 \
+  -XX:MaxMetaspaceSize="$JAVA_MAX_METASPACE" \
+  -XX:MaxDirectMemorySize="$JAVA_MAX_DIRECT_MEMORY" \
+  -XX:ReservedCodeCacheSize=64m \
+  -Xss512k \
+  -XX:+ExitOnOutOfMemoryError \
+  $GC_OPTS \
+  $JAVA_OPTS \
+  org.springframework.boot.loader.JarLauncher "$@"
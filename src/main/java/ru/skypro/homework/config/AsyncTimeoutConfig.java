@@ -0,0 +1,47 @@
+package ru.skypro.homework.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Конфигурация таймаута отдельных асинхронных запросов.
+ * <br><br> Общий таймаут асинхронных запросов Spring MVC остается по умолчанию. Контроллер, которому нужен другой таймаут
+ * (например, потоковая выгрузка), кладет его в атрибут запроса {@link #TIMEOUT_ATTRIBUTE}, и перехватчик применяет его
+ * перед запуском асинхронной обработки. {@link org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody}
+ * не позволяет задать таймаут сам.
+ */
+@Configuration
+public class AsyncTimeoutConfig implements WebMvcConfigurer {
+
+    /**
+     * Атрибут запроса с таймаутом асинхронной обработки в миллисекундах (Long)
+     */
+    public static final String TIMEOUT_ATTRIBUTE = AsyncTimeoutConfig.class.getName() + ".timeout";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new RequestTimeoutInterceptor());
+    }
+
+    /**
+     * Перехватчик, который задает таймаут асинхронной обработки из атрибута запроса
+     */
+    private static class RequestTimeoutInterceptor implements CallableProcessingInterceptor {
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            Object timeout = request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (timeout instanceof Long && request instanceof AsyncWebRequest) {
+                ((AsyncWebRequest) request).setTimeout((Long) timeout);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package ru.skypro.homework.config;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Запуск Liquibase, который пропускается, если схема уже соответствует текущим скриптам миграций.
+ * <br><br> При старте вычисляется SHA-256 всех файлов changelogLocation и сравнивается с суммой в таблице schema_checksum.
+ * Если суммы совпадают, Liquibase не запускается: не берется блокировка, не разбирается журнал изменений и
+ * не проверяются контрольные суммы наборов изменений. Иначе Liquibase выполняется как обычно,
+ * и после успешного обновления новая сумма записывается в schema_checksum.
+ * <br> Для журнала используется логгер Liquibase, унаследованный от {@link SpringLiquibase}.
+ */
+public class ChecksumSpringLiquibase extends SpringLiquibase {
+
+    private static final String SELECT_CHECKSUM_SQL = "SELECT checksum FROM schema_checksum WHERE id = 1";
+    private static final String UPSERT_CHECKSUM_SQL = "INSERT INTO schema_checksum (id, checksum) VALUES (1, ?) "
+            + "ON CONFLICT (id) DO UPDATE SET checksum = EXCLUDED.checksum";
+
+    private final String changelogLocation;
+
+    /**
+     * @param changelogLocation шаблон файлов миграций, например classpath*:liquibase/**&#47;*
+     */
+    public ChecksumSpringLiquibase(String changelogLocation) {
+        this.changelogLocation = changelogLocation;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        if (!shouldRun) {
+            super.afterPropertiesSet();
+            return;
+        }
+        String checksum = computeChecksum();
+        if (checksum != null && checksum.equals(readChecksum())) {
+            log.info("Database schema matches changelog checksum " + checksum + ", Liquibase update skipped");
+            return;
+        }
+        super.afterPropertiesSet();
+        if (checksum != null) {
+            writeChecksum(checksum);
+        }
+    }
+
+    /**
+     * Приватный метод, который вычисляет сумму путей и содержимого всех файлов миграций
+     * @return сумма или null, если файлы прочитать не удалось
+     */
+    private String computeChecksum() {
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver(getResourceLoader())
+                    .getResources(changelogLocation);
+            Arrays.sort(resources, Comparator.comparing(Resource::getDescription));
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Resource resource : resources) {
+                if (!resource.isReadable()) {
+                    continue;
+                }
+                digest.update(resource.getFilename().getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = resource.getInputStream()) {
+                    digest.update(in.readAllBytes());
+                }
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.warning("Failed to compute changelog checksum, Liquibase runs as usual", e);
+            return null;
+        }
+    }
+
+    private String readChecksum() {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_CHECKSUM_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getString(1) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private void writeChecksum(String checksum) {
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPSERT_CHECKSUM_SQL)) {
+            statement.setString(1, checksum);
+            statement.executeUpdate();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            log.warning("Failed to store changelog checksum, Liquibase runs again on the next start", e);
+        }
+    }
+
+}
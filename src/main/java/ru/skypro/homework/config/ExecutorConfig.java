@@ -0,0 +1,94 @@
+package ru.skypro.homework.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Конфигурация отдельных пулов потоков приложения
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Пул для загрузки и записи изображений при массовом импорте объявлений.
+     * <br> Пул общий для всех импортов: когда очередь заполнена, изображение загружается в потоке импорта
+     */
+    @Bean
+    public ThreadPoolTaskExecutor adImportImageExecutor(@Value("${ads.import.image-threads}") int threads,
+                                                        @Value("${ads.import.chunk-size}") int chunkSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ad-import-image-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(chunkSize);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("ad import image pool is shut down");
+            }
+            task.run();
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Пул для отправки событий комментариев подписчикам. Подписчик не занимает поток, пока ему нечего отправлять
+     */
+    @Bean
+    public ThreadPoolTaskExecutor commentStreamExecutor(@Value("${comments.stream.send-threads}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("comment-stream-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        return executor;
+    }
+
+    /**
+     * Поток для досрочной записи просмотров, когда счетчиков в памяти больше лимита
+     */
+    @Bean
+    public ThreadPoolTaskExecutor viewFlushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("view-flush-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        return executor;
+    }
+
+    /**
+     * Пул для хеширования и проверки паролей BCrypt. При 0 потоков размер пула равен количеству ядер
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor(@Value("${security.password.threads}") int threads,
+                                                          @Value("${security.password.queue-capacity}") int queueCapacity) {
+        int poolSize = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("password-hashing-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+
+    /**
+     * Пул для чтения и записи изображений и аватаров. Задача выполняется с контекстом безопасности запроса
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageIoExecutor(@Value("${images.io.threads}") int threads,
+                                                  @Value("${images.io.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("image-io-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(DelegatingSecurityContextRunnable::new);
+        return executor;
+    }
+
+}
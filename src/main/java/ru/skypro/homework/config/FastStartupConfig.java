@@ -0,0 +1,96 @@
+package ru.skypro.homework.config;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.lang.annotation.Annotation;
+
+/**
+ * Конфигурация быстрого старта (профиль fast-startup).
+ * <br><br> При ленивой инициализации бинов бины с методами {@link Scheduled} и {@link EventListener} остаются неленивыми,
+ * иначе их задачи не запустятся до первого обращения к бину.
+ * <br> При spring.data.jpa.repositories.bootstrap-mode=deferred фабрика EntityManager строится в отдельном потоке
+ * jpa-bootstrap. Spring Boot передает фабрике только исполнитель applicationTaskExecutor, которого нет, так как
+ * пулы потоков задаются в {@link ExecutorConfig}, поэтому исполнитель задается явно.
+ * <br> При startup.liquibase.skip-when-current=true Liquibase запускается через {@link ChecksumSpringLiquibase}
+ * и пропускается, если схема соответствует скриптам миграций.
+ * <br> При startup.training-run=true приложение завершается сразу после создания контекста: так при сборке образа
+ * запускается тренировочный запуск, который записывает архив CDS загруженных классов. Задачи по расписанию
+ * в тренировочном запуске не включаются ({@link SchedulingConfig}).
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(LiquibaseProperties.class)
+public class FastStartupConfig {
+
+    /**
+     * Фильтр, который исключает из ленивой инициализации бины с задачами по расписанию и обработчиками событий
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter scheduledBeansLazyInitializationExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (hasAnnotatedMethod(beanType, Scheduled.class) || hasAnnotatedMethod(beanType, EventListener.class));
+    }
+
+    /**
+     * Исполнитель, в котором строится фабрика EntityManager при отложенной инициализации репозиториев
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.data.jpa.repositories.bootstrap-mode", havingValue = "deferred")
+    public EntityManagerFactoryBuilderCustomizer jpaBootstrapExecutorCustomizer() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("jpa-bootstrap-");
+        return builder -> builder.setBootstrapExecutor(executor);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "startup.liquibase.skip-when-current", havingValue = "true")
+    public SpringLiquibase liquibase(DataSource dataSource,
+                                     LiquibaseProperties properties,
+                                     @Value("${startup.liquibase.checksum-location}") String checksumLocation) {
+        SpringLiquibase liquibase = new ChecksumSpringLiquibase(checksumLocation);
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(properties.getChangeLog());
+        liquibase.setContexts(properties.getContexts());
+        liquibase.setLabels(properties.getLabels());
+        liquibase.setDefaultSchema(properties.getDefaultSchema());
+        liquibase.setDropFirst(properties.isDropFirst());
+        liquibase.setShouldRun(properties.isEnabled());
+        liquibase.setChangeLogParameters(properties.getParameters());
+        return liquibase;
+    }
+
+    /**
+     * Слушатель, который завершает тренировочный запуск после создания контекста, до обращений к базе данных
+     */
+    @Bean
+    @ConditionalOnProperty(name = "startup.training-run", havingValue = "true")
+    public ApplicationListener<ApplicationStartedEvent> trainingRunExit() {
+        return event -> {
+            log.info("Training run finished in {} ms, exiting", event.getTimeTaken().toMillis());
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        };
+    }
+
+    private static boolean hasAnnotatedMethod(Class<?> type, Class<? extends Annotation> annotation) {
+        return !MethodIntrospector.selectMethods(type, (MethodIntrospector.MetadataLookup<Annotation>) method ->
+                AnnotatedElementUtils.findMergedAnnotation(method, annotation)).isEmpty();
+    }
+
+}
@@ -0,0 +1,45 @@
+package ru.skypro.homework.config;
+
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация HTTP/2 встроенного Tomcat (server.http2.enabled=true).
+ * <br><br> Без TLS соединение переходит на HTTP/2 по заголовку Upgrade: h2c или сразу начинается с преамбулы HTTP/2,
+ * с TLS (профиль tls) протокол выбирается через ALPN. Страница объявлений загружает изображения и аватары
+ * по одному соединению параллельными потоками вместо очереди запросов HTTP/1.1 в нескольких соединениях.
+ * <br> Потоки запросов, keep-alive, число соединений и очередь accept настраиваются свойствами server.tomcat.*,
+ * параметры потоков HTTP/2 – свойствами server.http2.*.
+ */
+@Configuration
+@ConditionalOnProperty(name = "server.http2.enabled", havingValue = "true")
+public class Http2Config {
+
+    /**
+     * Настройка протокола HTTP/2, который Spring Boot добавляет в коннектор
+     */
+    @Bean
+    public TomcatConnectorCustomizer http2ConnectorCustomizer(
+            @Value("${server.http2.max-concurrent-streams}") int maxConcurrentStreams,
+            @Value("${server.http2.max-concurrent-stream-execution}") int maxConcurrentStreamExecution,
+            @Value("${server.http2.keep-alive-timeout}") long keepAliveTimeout,
+            @Value("${server.http2.read-timeout}") long readTimeout) {
+        return connector -> {
+            for (UpgradeProtocol upgradeProtocol : connector.findUpgradeProtocols()) {
+                if (upgradeProtocol instanceof Http2Protocol) {
+                    Http2Protocol http2 = (Http2Protocol) upgradeProtocol;
+                    http2.setMaxConcurrentStreams(maxConcurrentStreams);
+                    http2.setMaxConcurrentStreamExecution(maxConcurrentStreamExecution);
+                    http2.setKeepAliveTimeout(keepAliveTimeout);
+                    http2.setReadTimeout(readTimeout);
+                }
+            }
+        };
+    }
+
+}
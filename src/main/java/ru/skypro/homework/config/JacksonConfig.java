@@ -0,0 +1,68 @@
+package ru.skypro.homework.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Конфигурация Jackson для ответов API.
+ * <br><br> DTO с аннотацией JsonFilter("fields") сериализуются целиком, если запрос не выбрал поля параметром fields
+ * (см. {@link ru.skypro.homework.controller.FieldsResponseBodyAdvice}).
+ * <br> Если в сборке есть модуль Blackbird (профиль Maven compact-encodings), он подключается и заменяет доступ к
+ * свойствам через отражение сгенерированными через {@link java.lang.invoke.LambdaMetafactory} функциями.
+ * Этот же профиль добавляет форматы CBOR и Smile, которые Spring MVC выбирает по заголовку Accept
+ * (application/cbor, application/x-jackson-smile). Их конвертеры строятся из того же {@link Jackson2ObjectMapperBuilder},
+ * что и JSON, поэтому в них есть фильтр fields и модули Spring Boot. Конвертеры по умолчанию Spring MVC
+ * строятся без настроек Spring Boot и заменяются ими.
+ */
+@Configuration
+public class JacksonConfig {
+
+    static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+    static final String CBOR_FACTORY = "com.fasterxml.jackson.dataformat.cbor.CBORFactory";
+    static final String SMILE_FACTORY = "com.fasterxml.jackson.dataformat.smile.SmileFactory";
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldsFilterCustomizer() {
+        return builder -> {
+            builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+            if (ClassUtils.isPresent(BLACKBIRD_MODULE, JacksonConfig.class.getClassLoader())) {
+                builder.postConfigurer(objectMapper -> objectMapper.registerModule((Module) instantiate(BLACKBIRD_MODULE)));
+            }
+        };
+    }
+
+    /**
+     * Конвертер CBOR, построенный из настроенного Spring Boot {@link Jackson2ObjectMapperBuilder}
+     */
+    @Bean
+    @ConditionalOnClass(name = CBOR_FACTORY)
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(
+                builder.factory((JsonFactory) instantiate(CBOR_FACTORY)).build());
+    }
+
+    /**
+     * Конвертер Smile, построенный из настроенного Spring Boot {@link Jackson2ObjectMapperBuilder}
+     */
+    @Bean
+    @ConditionalOnClass(name = SMILE_FACTORY)
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(
+                builder.factory((JsonFactory) instantiate(SMILE_FACTORY)).build());
+    }
+
+    private static Object instantiate(String className) {
+        return BeanUtils.instantiateClass(ClassUtils.resolveClassName(className, JacksonConfig.class.getClassLoader()));
+    }
+
+}
@@ -0,0 +1,16 @@
+package ru.skypro.homework.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Конфигурация задач по расписанию.
+ * <br><br> При тренировочном запуске (startup.training-run=true) задачи по расписанию не включаются: контекст
+ * закрывается сразу после создания, и задачи не должны обращаться к базе данных во время сборки образа.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "startup.training-run", havingValue = "false", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,49 @@
+package ru.skypro.homework.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Конфигурация режима виртуальных потоков (spring.threads.virtual.enabled=true, профиль virtual, JDK 21+).
+ * <br><br> Запросы Tomcat и асинхронные ответы Spring MVC выполняются в виртуальных потоках, поэтому поток,
+ * ожидающий JDBC или диск, не занимает поток платформы, а число одновременных запросов к базе данных ограничивает
+ * пул соединений Hikari. Пулы приложения из {@link ExecutorConfig} остаются ограниченными пулами потоков платформы.
+ * <br> Приложение собирается под Java 11, поэтому виртуальный исполнитель создается через отражение;
+ * на JDK без виртуальных потоков приложение не запустится в этом режиме.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Исполнитель запросов Tomcat, который запускает каждый запрос в новом виртуальном потоке
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("spring.threads.virtual.enabled requires JDK 21 or newer", e);
+        }
+    }
+
+}
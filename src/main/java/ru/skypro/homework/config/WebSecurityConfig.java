@@ -1,15 +1,21 @@
 package ru.skypro.homework.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
-
-import static org.springframework.security.config.Customizer.withDefaults;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import ru.skypro.homework.exception.PasswordHashingRejectedException;
+import ru.skypro.homework.filter.LoginThrottleFilter;
+import ru.skypro.homework.filter.RateLimitFilter;
+import ru.skypro.homework.service.LoginAttemptService;
 
 @Configuration
 @EnableGlobalMethodSecurity(prePostEnabled = true)
@@ -27,7 +33,9 @@ public class WebSecurityConfig {
     };
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           LoginAttemptService loginAttemptService,
+                                           RateLimitFilter rateLimitFilter) throws Exception {
         http.csrf()
                 .disable()
                 .authorizeHttpRequests(
@@ -35,20 +43,48 @@ public class WebSecurityConfig {
                                 authorization
                                         .mvcMatchers(AUTH_WHITELIST)
                                         .permitAll()
-                                        .mvcMatchers(HttpMethod.GET, "/ads")
+                                        .mvcMatchers(HttpMethod.GET, "/ads", "/ads/changes", "/ads/trending", "/ads/suggest", "/ads/stats")
                                         .permitAll()
+                                        .mvcMatchers("/export/**", "/metrics/**")
+                                        .hasRole("ADMIN")
                                         .mvcMatchers("/ads/**", "/users/**")
                                         .authenticated()
                 )
                 .cors()
                 .and()
-                .httpBasic(withDefaults());
+                .httpBasic(basic -> basic.authenticationEntryPoint(authenticationEntryPoint()))
+                .addFilterBefore(rateLimitFilter, BasicAuthenticationFilter.class)
+                .addFilterBefore(new LoginThrottleFilter(loginAttemptService), BasicAuthenticationFilter.class);
         return http.build();
     }
 
+    /**
+     * Регистрация, которая не дает Spring Boot добавить {@link RateLimitFilter} в контейнер сервлетов:
+     * фильтр выполняется только в цепочке Spring Security
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    /**
+     * Точка входа HTTP Basic, которая отвечает 503 вместо 401, если проверить пароль не удалось из-за перегрузки
+     * пула хеширования паролей
+     */
+    private AuthenticationEntryPoint authenticationEntryPoint() {
+        BasicAuthenticationEntryPoint basicEntryPoint = new BasicAuthenticationEntryPoint();
+        basicEntryPoint.setRealmName("Realm");
+        return (request, response, authException) -> {
+            if (authException instanceof PasswordHashingRejectedException
+                    || authException.getCause() instanceof PasswordHashingRejectedException) {
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                return;
+            }
+            basicEntryPoint.commence(request, response, authException);
+        };
     }
 
 }
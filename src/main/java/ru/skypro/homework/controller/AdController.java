@@ -4,15 +4,22 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.dto.AdChangesDto;
 import ru.skypro.homework.dto.AdDto;
+import ru.skypro.homework.dto.AdFilterDto;
 import ru.skypro.homework.dto.AdsDto;
 import ru.skypro.homework.dto.CreateOrUpdateAdDto;
 import ru.skypro.homework.dto.ExtendedAdDto;
+import ru.skypro.homework.dto.ExtendedAdsDto;
+import ru.skypro.homework.dto.PriceStatsDto;
+import ru.skypro.homework.dto.SuggestionsDto;
 import ru.skypro.homework.service.AdService;
+import ru.skypro.homework.service.ImageIoService;
 import ru.skypro.homework.service.impl.AdServiceImpl;
 
-import java.io.IOException;
+import java.util.List;
 
 /**
  * Контроллер для обработки запросов для объявлений
@@ -22,23 +29,65 @@ import java.io.IOException;
 @CrossOrigin(value = "http://localhost:3000")
 public class AdController {
     private final AdService service;
+    private final ImageIoService imageIoService;
 
-    public AdController(final AdService service) {
+    public AdController(final AdService service,
+                        final ImageIoService imageIoService) {
         this.service = service;
+        this.imageIoService = imageIoService;
     }
 
     /**
-     * Вывод всех объявлений.
-     * <br>Используется метод сервиса {@link AdServiceImpl#getAll()}
+     * Вывод всех объявлений или объявлений, удовлетворяющих фильтру.
+     * <br>Параметры фильтра: minPrice, maxPrice, authorId, hasImage, sort (ID, PRICE_ASC, PRICE_DESC), page, size.
+     * <br>Используется метод сервиса {@link AdServiceImpl#getAll(AdFilterDto)}
+     * @param filter AdFilterDto
      * @return AdsDto
      */
     @GetMapping
-    public ResponseEntity<AdsDto> getAllAds() {
+    public ResponseEntity<AdsDto> getAllAds(AdFilterDto filter) {
         return ResponseEntity.ok(
-                service.getAll()
+                service.getAll(filter)
         );
     }
 
+    /**
+     * Вывод популярных объявлений
+     * <br>Используется метод сервиса {@link AdServiceImpl#getTrending}
+     * @param page Integer
+     * @param size Integer
+     * @return AdsDto
+     */
+    @GetMapping(path = "/trending")
+    public ResponseEntity<AdsDto> getTrendingAds(@RequestParam(value = "page", defaultValue = "0") Integer page,
+                                                 @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        return ResponseEntity.ok(service.getTrending(page, size));
+    }
+
+    /**
+     * Статистика цен всех объявлений или объявлений со словом в заголовке
+     * <br>Используется метод сервиса {@link AdServiceImpl#getPriceStats}
+     * @param keyword String
+     * @return PriceStatsDto
+     */
+    @GetMapping(path = "/stats")
+    public ResponseEntity<PriceStatsDto> getPriceStats(@RequestParam(value = "keyword", required = false) String keyword) {
+        return ResponseEntity.ok(service.getPriceStats(keyword));
+    }
+
+    /**
+     * Подсказки для поискового запроса по заголовкам объявлений
+     * <br>Используется метод сервиса {@link AdServiceImpl#suggest}
+     * @param q     String
+     * @param limit Integer
+     * @return SuggestionsDto
+     */
+    @GetMapping(path = "/suggest")
+    public ResponseEntity<SuggestionsDto> suggest(@RequestParam(value = "q") String q,
+                                                  @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        return ResponseEntity.ok(service.suggest(q, limit));
+    }
+
     /**
      * Добавления нового объявления авторизованным пользователем
      * <br>Используется метод сервиса {@link AdServiceImpl#create}
@@ -68,6 +117,36 @@ public class AdController {
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
+    /**
+     * Вывод нескольких объявлений по списку идентификаторов
+     * <br>Используется метод сервиса {@link AdServiceImpl#getBatch}
+     * @param ids List&lt;Integer&gt;
+     * @return ExtendedAdsDto
+     */
+    @GetMapping(path = "/batch")
+    public ResponseEntity<ExtendedAdsDto> getAdsByIds(@RequestParam(value = "ids") List<Integer> ids) {
+        ExtendedAdsDto ads = service.getBatch(ids);
+        return (ads != null)
+                ? ResponseEntity.ok(ads)
+                : ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+
+    /**
+     * Вывод объявлений, похожих на объявление с переданным идентификатором
+     * <br>Используется метод сервиса {@link AdServiceImpl#getSimilar}
+     * @param id    Integer
+     * @param limit Integer
+     * @return AdsDto
+     */
+    @GetMapping(path = "/{id}/similar")
+    public ResponseEntity<AdsDto> getSimilarAds(@PathVariable(value = "id") Integer id,
+                                                @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        AdsDto ads = service.getSimilar(id, limit);
+        return (ads != null)
+                ? ResponseEntity.ok(ads)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
     /**
      * Удаление объявления по идентификатору
      * <br>Используется метод сервиса {@link AdServiceImpl#delete}
@@ -115,9 +194,23 @@ public class AdController {
         return ResponseEntity.ok(service.getAuthorizedUserAds());
     }
 
+    /**
+     * Получение изменений объявлений после переданного токена (созданные, измененные и удаленные объявления).
+     * <br>Используется метод сервиса {@link AdServiceImpl#getChanges}
+     * @param since Long
+     * @param limit Integer
+     * @return AdChangesDto
+     */
+    @GetMapping(path = "/changes")
+    public ResponseEntity<AdChangesDto> getChanges(@RequestParam(value = "since", defaultValue = "0") Long since,
+                                                   @RequestParam(value = "limit", required = false) Integer limit) {
+        return ResponseEntity.ok(service.getChanges(since, limit));
+    }
+
     /**
      * Обновление фотографий объявления
      * <br>Используется метод сервиса {@link AdServiceImpl#updateImage}
+     * <br>Файл записывается в пуле изображений {@link ru.skypro.homework.service.impl.ImageIoServiceImpl#submitWrite}
      * @param id     Integer
      * @param file   MultipartFile
      * @return Resource
@@ -127,20 +220,22 @@ public class AdController {
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
             produces = MediaType.APPLICATION_OCTET_STREAM_VALUE
     )
-    public ResponseEntity<byte[]> updateImageByAdId(@PathVariable(value = "id") Integer id,
-                                                      @RequestPart(name = "image") MultipartFile file) throws IOException {
-        AdDto adDto = service.findAdById(id);
-        if (adDto == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } else {
-            String fileName = service.updateImage(id, file);
-            if (fileName != null) {
-                byte[] image = service.getImage(fileName);
-                return ResponseEntity.ok().body(image);
+    public DeferredResult<ResponseEntity<byte[]>> updateImageByAdId(@PathVariable(value = "id") Integer id,
+                                                                    @RequestPart(name = "image") MultipartFile file) {
+        return imageIoService.submitWrite(() -> {
+            AdDto adDto = service.findAdById(id);
+            if (adDto == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             } else {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+                String fileName = service.updateImage(id, file);
+                if (fileName != null) {
+                    byte[] image = service.getImage(fileName);
+                    return ResponseEntity.ok().body(image);
+                } else {
+                    return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+                }
             }
-        }
+        });
     }
 
 }
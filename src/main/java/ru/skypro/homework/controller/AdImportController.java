@@ -0,0 +1,46 @@
+package ru.skypro.homework.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import ru.skypro.homework.dto.AdImportReportDto;
+import ru.skypro.homework.service.AdImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Контроллер для массового импорта объявлений (только для администратора: сервер скачивает изображения
+ * по адресам из тела запроса)
+ */
+@RestController
+@RequestMapping(path = "/ads")
+@CrossOrigin(value = "http://localhost:3000")
+public class AdImportController {
+
+    private final AdImportService adImportService;
+
+    public AdImportController(final AdImportService adImportService) {
+        this.adImportService = adImportService;
+    }
+
+    /**
+     * Импорт объявлений из потока NDJSON, каждая строка – объявление с необязательным адресом изображения.
+     * <br>Чтобы продолжить прерванный импорт, нужно повторить запрос с importId из предыдущего отчета.
+     * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.AdImportServiceImpl#importAds}
+     * @param importId String
+     * @param body     InputStream
+     * @return AdImportReportDto
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(path = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<AdImportReportDto> importAds(@RequestParam(value = "importId", required = false) String importId,
+                                                       InputStream body) throws IOException {
+        AdImportReportDto report = adImportService.importAds(body, importId);
+        return (report != null)
+                ? ResponseEntity.ok(report)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+}
@@ -3,10 +3,10 @@ package ru.skypro.homework.controller;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.skypro.homework.service.ImageIoService;
 import ru.skypro.homework.service.UserService;
 
-import java.io.IOException;
-
 /**
  * Контроллер для обработки запросов для аватарок пользователей
  */
@@ -16,20 +16,28 @@ import java.io.IOException;
 public class AvatarController {
 
     private final UserService userService;
+    private final ImageIoService imageIoService;
 
-    public AvatarController(final UserService userService) {
+    public AvatarController(final UserService userService,
+                            final ImageIoService imageIoService) {
         this.userService = userService;
+        this.imageIoService = imageIoService;
     }
 
+    /**
+     * Получение аватара пользователя
+     * <br>Файл читается в пуле изображений {@link ru.skypro.homework.service.impl.ImageIoServiceImpl#submit}
+     * @param fileName String
+     * @return byte[]
+     */
     @GetMapping(value = "/{fileName}", produces = {
             MediaType.IMAGE_PNG_VALUE,
             MediaType.IMAGE_JPEG_VALUE,
             MediaType.IMAGE_GIF_VALUE,
             "image/*"
     })
-    public ResponseEntity<byte[]> getAvatar(@PathVariable final String fileName) throws IOException {
-        byte[] avatar = userService.getAvatar(fileName);
-        return ResponseEntity.ok().body(avatar);
+    public DeferredResult<ResponseEntity<byte[]>> getAvatar(@PathVariable final String fileName) {
+        return imageIoService.submit(() -> ResponseEntity.ok().body(userService.getAvatar(fileName)));
     }
 
 }
@@ -1,14 +1,17 @@
 package ru.skypro.homework.controller;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.skypro.homework.dto.AdDto;
 import ru.skypro.homework.dto.CommentDto;
 import ru.skypro.homework.dto.CommentsDto;
 import ru.skypro.homework.dto.CreateOrUpdateCommentDto;
 import ru.skypro.homework.service.AdService;
 import ru.skypro.homework.service.CommentService;
+import ru.skypro.homework.service.CommentStreamService;
 
 /**
  * Контроллер для обработки запросов для комментариев
@@ -19,11 +22,14 @@ import ru.skypro.homework.service.CommentService;
 public class CommentController {
     private final CommentService commentService;
     private final AdService adService;
+    private final CommentStreamService commentStreamService;
 
     public CommentController(final CommentService commentService,
-                             final AdService adService) {
+                             final AdService adService,
+                             final CommentStreamService commentStreamService) {
         this.commentService = commentService;
         this.adService = adService;
+        this.commentStreamService = commentStreamService;
     }
 
     /**
@@ -43,6 +49,24 @@ public class CommentController {
         }
     }
 
+    /**
+     * Подписка на новые, измененные и удаленные комментарии объявления через Server-Sent Events
+     * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.CommentStreamServiceImpl#subscribe}
+     * @param adId Integer
+     * @return SseEmitter (статус 503, если подписчиков слишком много)
+     */
+    @GetMapping(path = "/{id}/comments/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamComments(@PathVariable(value = "id") Integer adId) {
+        AdDto foundAd = adService.findAdById(adId);
+        if (foundAd == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        SseEmitter emitter = commentStreamService.subscribe(adId);
+        return (emitter != null)
+                ? ResponseEntity.ok(emitter)
+                : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
     /**
      * Добавление комментария к объявлению
      * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.CommentServiceImpl#addComment}
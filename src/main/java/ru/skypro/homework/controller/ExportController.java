@@ -0,0 +1,103 @@
+package ru.skypro.homework.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.skypro.homework.config.AsyncTimeoutConfig;
+import ru.skypro.homework.dto.ExportFormat;
+import ru.skypro.homework.service.ExportService;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Контроллер для потоковой выгрузки объявлений и комментариев (только для администратора)
+ * <br> Выгрузка может идти дольше общего таймаута асинхронных запросов, поэтому ее таймаут export.timeout
+ * задается только для запросов выгрузки через {@link AsyncTimeoutConfig#TIMEOUT_ATTRIBUTE}
+ */
+@RestController
+@RequestMapping(path = "/export")
+@CrossOrigin(value = "http://localhost:3000")
+@PreAuthorize("hasRole('ADMIN')")
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ExportService exportService;
+    private final long timeout;
+
+    public ExportController(final ExportService exportService,
+                            @Value("${export.timeout}") long timeout) {
+        this.exportService = exportService;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Выгрузка всех объявлений
+     * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.ExportServiceImpl#exportAds}
+     * @param format ExportFormat
+     * @param gzip   boolean
+     * @param request HttpServletRequest
+     * @return StreamingResponseBody
+     */
+    @GetMapping("/ads")
+    public ResponseEntity<StreamingResponseBody> exportAds(@RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+                                                           @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                                                           HttpServletRequest request) {
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                exportService.exportAds(gzipOut, format);
+                gzipOut.finish();
+            } else {
+                exportService.exportAds(out, format);
+            }
+        };
+        return buildResponse("ads", format, gzip, body, request);
+    }
+
+    /**
+     * Выгрузка всех комментариев
+     * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.ExportServiceImpl#exportComments}
+     * @param format ExportFormat
+     * @param gzip   boolean
+     * @param request HttpServletRequest
+     * @return StreamingResponseBody
+     */
+    @GetMapping("/comments")
+    public ResponseEntity<StreamingResponseBody> exportComments(@RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+                                                                @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                                                                HttpServletRequest request) {
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                exportService.exportComments(gzipOut, format);
+                gzipOut.finish();
+            } else {
+                exportService.exportComments(out, format);
+            }
+        };
+        return buildResponse("comments", format, gzip, body, request);
+    }
+
+    private ResponseEntity<StreamingResponseBody> buildResponse(String name,
+                                                                ExportFormat format,
+                                                                boolean gzip,
+                                                                StreamingResponseBody body,
+                                                                HttpServletRequest request) {
+        request.setAttribute(AsyncTimeoutConfig.TIMEOUT_ATTRIBUTE, timeout);
+        String fileName = name + (format == ExportFormat.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format == ExportFormat.CSV ? new MediaType("text", "csv") : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+}
@@ -0,0 +1,58 @@
+package ru.skypro.homework.controller;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+import ru.skypro.homework.dto.AdsDto;
+import ru.skypro.homework.dto.CommentsDto;
+import ru.skypro.homework.dto.ExtendedAdDto;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Обработчик ответов, который оставляет в объявлениях и комментариях только поля, перечисленные в параметре fields.
+ * <br><br> Например, GET /ads?fields=pk,title,price,image вернет count и объявления только с этими четырьмя полями.
+ * Для {@link AdsDto} и {@link CommentsDto} поля выбираются у элементов results, для {@link ExtendedAdDto} – у самого объявления.
+ * Выбор полей работает для JSON и для CBOR и Smile, если они подключены.
+ */
+@RestControllerAdvice
+public class FieldsResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    private static final String FIELDS_PARAMETER = "fields";
+    private static final String FIELDS_FILTER = "fields";
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer,
+                                           MediaType contentType,
+                                           MethodParameter returnType,
+                                           ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        Object value = bodyContainer.getValue();
+        if (!(value instanceof AdsDto || value instanceof CommentsDto || value instanceof ExtendedAdDto)
+                || !(request instanceof ServletServerHttpRequest)) {
+            return;
+        }
+        String fields = ((ServletServerHttpRequest) request).getServletRequest().getParameter(FIELDS_PARAMETER);
+        if (fields == null || fields.isBlank()) {
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        bodyContainer.setFilters(new SimpleFilterProvider()
+                .addFilter(FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(names)));
+    }
+
+}
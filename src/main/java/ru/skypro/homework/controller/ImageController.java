@@ -3,9 +3,9 @@ package ru.skypro.homework.controller;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import ru.skypro.homework.service.AdService;
-
-import java.io.IOException;
+import ru.skypro.homework.service.ImageIoService;
 
 /**
  * Контроллер для обработки запросов для изображений объявлений
@@ -16,20 +16,28 @@ import java.io.IOException;
 public class ImageController {
 
     private final AdService adService;
+    private final ImageIoService imageIoService;
 
-    public ImageController(final AdService adService) {
+    public ImageController(final AdService adService,
+                           final ImageIoService imageIoService) {
         this.adService = adService;
+        this.imageIoService = imageIoService;
     }
 
+    /**
+     * Получение изображения объявления
+     * <br>Файл читается в пуле изображений {@link ru.skypro.homework.service.impl.ImageIoServiceImpl#submit}
+     * @param fileName String
+     * @return byte[]
+     */
     @GetMapping(value = "/{fileName}", produces = {
             MediaType.IMAGE_PNG_VALUE,
             MediaType.IMAGE_JPEG_VALUE,
             MediaType.IMAGE_GIF_VALUE,
             "image/*"
     })
-    public ResponseEntity<byte[]> getImage(@PathVariable(value = "fileName") final String fileName) throws IOException {
-        byte[] image = adService.getImage(fileName);
-        return ResponseEntity.ok().body(image);
+    public DeferredResult<ResponseEntity<byte[]>> getImage(@PathVariable(value = "fileName") final String fileName) {
+        return imageIoService.submit(() -> ResponseEntity.ok().body(adService.getImage(fileName)));
     }
 
 }
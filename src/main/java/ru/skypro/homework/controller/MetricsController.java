@@ -0,0 +1,69 @@
+package ru.skypro.homework.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.skypro.homework.dto.ExecutorStatsDto;
+import ru.skypro.homework.dto.PasswordHashingStatsDto;
+import ru.skypro.homework.dto.SingleFlightStatsDto;
+import ru.skypro.homework.service.ImageIoService;
+import ru.skypro.homework.service.PasswordHashingService;
+import ru.skypro.homework.service.SingleFlightService;
+
+import java.util.List;
+
+/**
+ * Контроллер для получения метрик внутренних пулов потоков и объединения запросов (только для администратора)
+ */
+@RestController
+@RequestMapping(path = "/metrics")
+@CrossOrigin(value = "http://localhost:3000")
+@PreAuthorize("hasRole('ADMIN')")
+public class MetricsController {
+
+    private final PasswordHashingService passwordHashingService;
+    private final ImageIoService imageIoService;
+    private final SingleFlightService singleFlightService;
+
+    public MetricsController(final PasswordHashingService passwordHashingService,
+                             final ImageIoService imageIoService,
+                             final SingleFlightService singleFlightService) {
+        this.passwordHashingService = passwordHashingService;
+        this.imageIoService = imageIoService;
+        this.singleFlightService = singleFlightService;
+    }
+
+    /**
+     * Статистика пула хеширования паролей
+     * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.PasswordHashingServiceImpl#getStats}
+     * @return PasswordHashingStatsDto
+     */
+    @GetMapping("/password-hashing")
+    public ResponseEntity<PasswordHashingStatsDto> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordHashingService.getStats());
+    }
+
+    /**
+     * Статистика пула чтения и записи изображений
+     * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.ImageIoServiceImpl#getStats}
+     * @return ExecutorStatsDto
+     */
+    @GetMapping("/image-io")
+    public ResponseEntity<ExecutorStatsDto> getImageIoStats() {
+        return ResponseEntity.ok(imageIoService.getStats());
+    }
+
+    /**
+     * Статистика объединения одновременных запросов на чтение по операциям
+     * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.SingleFlightServiceImpl#getStats}
+     * @return List&lt;SingleFlightStatsDto&gt;
+     */
+    @GetMapping("/single-flight")
+    public ResponseEntity<List<SingleFlightStatsDto>> getSingleFlightStats() {
+        return ResponseEntity.ok(singleFlightService.getStats());
+    }
+
+}
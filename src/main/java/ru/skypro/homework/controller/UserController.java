@@ -6,14 +6,17 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 import ru.skypro.homework.dto.NewPasswordDto;
 import ru.skypro.homework.dto.UpdateUserDto;
 import ru.skypro.homework.dto.UserDto;
+import ru.skypro.homework.dto.UsersDto;
+import ru.skypro.homework.service.ImageIoService;
 import ru.skypro.homework.service.UserService;
 import ru.skypro.homework.service.impl.UserServiceImpl;
 
-import java.io.IOException;
+import java.util.List;
 
 /**
  * Контроллер для обработки запросов для пользователей
@@ -24,9 +27,12 @@ import java.io.IOException;
 public class UserController {
 
     private final UserService service;
+    private final ImageIoService imageIoService;
 
-    public UserController(final UserService service) {
+    public UserController(final UserService service,
+                          final ImageIoService imageIoService) {
         this.service = service;
+        this.imageIoService = imageIoService;
     }
 
     /**
@@ -58,6 +64,20 @@ public class UserController {
         return ResponseEntity.ok(service.getAuthenticatedUser());
     }
 
+    /**
+     * Получение карточек авторов (идентификатор, имя, аватар) по списку идентификаторов
+     * <br>Используется метод сервиса {@link UserServiceImpl#getUsersByIds}
+     * @param ids List&lt;Integer&gt;
+     * @return UsersDto
+     */
+    @GetMapping("/batch") // GET http://localhost:8080/users/batch?ids=1,2,3
+    public ResponseEntity<UsersDto> getUsersByIds(@RequestParam(value = "ids") List<Integer> ids) {
+        UsersDto users = service.getUsersByIds(ids);
+        return (users != null)
+                ? ResponseEntity.ok(users)
+                : ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+
     /**
      * Обновление данных пользователя
      * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.UserServiceImpl#updateUser}
@@ -73,23 +93,25 @@ public class UserController {
     /**
      * Обновление аватара пользователя
      * <br>Используется метод сервиса {@link ru.skypro.homework.service.impl.UserServiceImpl#updateAvatar}
+     * <br>Файл записывается в пуле изображений {@link ru.skypro.homework.service.impl.ImageIoServiceImpl#submitWrite}
      * @param image MultipartFile
      * @return Resource
-     * @throws IOException
      */
     @PatchMapping(
             path = "/me/image",
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
             produces = MediaType.APPLICATION_OCTET_STREAM_VALUE
     )
-    public ResponseEntity<byte[]> updateAvatar(@RequestParam MultipartFile image) throws IOException {
-        String fileName = service.updateAvatar(image);
-        if (fileName != null) {
-            byte[] avatar = service.getAvatar(fileName);
-            return ResponseEntity.ok().body(avatar);
-        } else {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
+    public DeferredResult<ResponseEntity<byte[]>> updateAvatar(@RequestParam MultipartFile image) {
+        return imageIoService.submitWrite(() -> {
+            String fileName = service.updateAvatar(image);
+            if (fileName != null) {
+                byte[] avatar = service.getAvatar(fileName);
+                return ResponseEntity.ok().body(avatar);
+            } else {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        });
     }
 
 }
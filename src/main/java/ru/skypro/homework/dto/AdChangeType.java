@@ -0,0 +1,5 @@
+package ru.skypro.homework.dto;
+
+public enum AdChangeType {
+    CREATE, UPDATE, DELETE
+}
@@ -0,0 +1,16 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AdChangesDto {
+
+    private Long token;
+    private Boolean hasMore;
+    private Integer count;
+    private List<AdDto> results;
+    private List<Integer> deleted;
+
+}
@@ -1,8 +1,10 @@
 package ru.skypro.homework.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Data;
 
 @Data
+@JsonFilter("fields")
 public class AdDto {
 
     private Integer pk;
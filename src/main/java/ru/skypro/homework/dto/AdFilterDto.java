@@ -0,0 +1,16 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+@Data
+public class AdFilterDto {
+
+    private Integer minPrice;
+    private Integer maxPrice;
+    private Integer authorId;
+    private Boolean hasImage;
+    private AdSort sort;
+    private Integer page;
+    private Integer size;
+
+}
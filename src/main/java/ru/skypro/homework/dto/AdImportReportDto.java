@@ -0,0 +1,21 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AdImportReportDto {
+
+    private String importId;
+    private Long committedRows;
+    private Long processedRows;
+    private Long importedRows;
+    private Long failedRows;
+    private Long skippedRows;
+    private Long elapsedMillis;
+    private Double rowsPerSecond;
+    private Boolean completed;
+    private List<AdImportErrorDto> errors;
+
+}
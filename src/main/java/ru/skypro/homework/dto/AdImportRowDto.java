@@ -0,0 +1,13 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+@Data
+public class AdImportRowDto {
+
+    private Integer price;
+    private String title;
+    private String description;
+    private String imageUrl;
+
+}
@@ -0,0 +1,5 @@
+package ru.skypro.homework.dto;
+
+public enum AdSort {
+    ID, PRICE_ASC, PRICE_DESC
+}
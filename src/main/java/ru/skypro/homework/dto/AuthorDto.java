@@ -0,0 +1,13 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+@Data
+public class AuthorDto {
+
+    private Integer id;
+    private String firstName;
+    private String lastName;
+    private String image;
+
+}
@@ -0,0 +1,14 @@
+package ru.skypro.homework.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CommentEventDto {
+
+    private CommentEventType type;
+    private Integer adId;
+    private CommentDto comment;
+
+}
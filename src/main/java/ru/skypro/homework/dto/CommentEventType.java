@@ -0,0 +1,5 @@
+package ru.skypro.homework.dto;
+
+public enum CommentEventType {
+    CREATED, UPDATED, DELETED
+}
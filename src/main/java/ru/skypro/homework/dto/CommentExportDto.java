@@ -0,0 +1,19 @@
+package ru.skypro.homework.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentExportDto {
+
+    private Integer pk;
+    private Integer ad;
+    private Integer author;
+    private String authorFirstName;
+    private String text;
+    private Long createdAt;
+
+}
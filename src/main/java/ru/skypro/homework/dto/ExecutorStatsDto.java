@@ -0,0 +1,16 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+@Data
+public class ExecutorStatsDto {
+
+    private int threads;
+    private int activeThreads;
+    private int queueCapacity;
+    private int queued;
+    private long completed;
+    private long rejected;
+    private long timedOut;
+
+}
@@ -0,0 +1,5 @@
+package ru.skypro.homework.dto;
+
+public enum ExportFormat {
+    NDJSON, CSV
+}
@@ -1,8 +1,10 @@
 package ru.skypro.homework.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Data;
 
 @Data
+@JsonFilter("fields")
 public class ExtendedAdDto {
 
     private Integer pk;
@@ -14,5 +16,6 @@ public class ExtendedAdDto {
     private String image;
     private String phone;
     private Integer price;
+    private Long views;
 
 }
@@ -0,0 +1,19 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+@Data
+public class PasswordHashingStatsDto {
+
+    private int strength;
+    private int threads;
+    private int queueCapacity;
+    private int queued;
+    private long completed;
+    private long rejected;
+    private double meanQueueTimeMillis;
+    private double maxQueueTimeMillis;
+    private double meanHashTimeMillis;
+    private double maxHashTimeMillis;
+
+}
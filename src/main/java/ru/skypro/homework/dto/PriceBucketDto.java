@@ -0,0 +1,14 @@
+package ru.skypro.homework.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PriceBucketDto {
+
+    private Long from;
+    private Long to;
+    private Long count;
+
+}
@@ -0,0 +1,19 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PriceStatsDto {
+
+    private String keyword;
+    private Long count;
+    private Long min;
+    private Long max;
+    private Long mean;
+    private Long median;
+    private Long p90;
+    private List<PriceBucketDto> histogram;
+
+}
@@ -0,0 +1,17 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+@Data
+public class SingleFlightStatsDto {
+
+    private String operation;
+    private long requests;
+    private long executions;
+    private long coalesced;
+    private long timedOut;
+    private long failed;
+    private int inFlight;
+    private double coalescingRatio;
+
+}
@@ -0,0 +1,13 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SuggestionsDto {
+
+    private Integer count;
+    private List<String> results;
+
+}
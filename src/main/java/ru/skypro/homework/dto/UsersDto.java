@@ -0,0 +1,14 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class UsersDto {
+
+    private Integer count;
+    private List<AuthorDto> results;
+    private List<Integer> notFound;
+
+}
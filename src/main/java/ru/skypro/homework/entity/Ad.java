@@ -24,6 +24,12 @@ public class Ad {
     private String description;
     private String image;
 
+    /**
+     * Счетчик просмотров меняется только пакетными обновлениями {@link ru.skypro.homework.service.impl.ViewCounterServiceImpl}
+     */
+    @Column(insertable = false, updatable = false)
+    private Long views;
+
     @ManyToOne
     @JoinColumn(name = "author")
     private User author;
@@ -0,0 +1,45 @@
+package ru.skypro.homework.entity;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.skypro.homework.dto.AdChangeType;
+
+import javax.persistence.*;
+import java.util.Objects;
+
+@Entity
+@Data
+@RequiredArgsConstructor
+@ToString
+@Table(name = "ad_changes")
+public class AdChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    private Integer adPk;
+
+    @Enumerated(EnumType.STRING)
+    private AdChangeType changeType;
+
+    private Long changedAt;
+
+    @Column(insertable = false, updatable = false)
+    private Long pos;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AdChange change = (AdChange) o;
+        return Objects.equals(seq, change.seq) && Objects.equals(adPk, change.adPk) && changeType == change.changeType && Objects.equals(changedAt, change.changedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(seq, adPk, changeType, changedAt);
+    }
+
+}
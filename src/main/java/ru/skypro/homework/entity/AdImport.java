@@ -0,0 +1,42 @@
+package ru.skypro.homework.entity;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.util.Objects;
+
+@Entity
+@Data
+@RequiredArgsConstructor
+@ToString
+@Table(name = "ad_imports")
+public class AdImport {
+
+    @Id
+    private String id;
+
+    @ManyToOne
+    @JoinColumn(name = "author")
+    private User author;
+
+    private Long committedRows;
+    private Long importedRows;
+    private Long failedRows;
+    private Long updatedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AdImport adImport = (AdImport) o;
+        return Objects.equals(id, adImport.id) && Objects.equals(author, adImport.author) && Objects.equals(committedRows, adImport.committedRows) && Objects.equals(importedRows, adImport.importedRows) && Objects.equals(failedRows, adImport.failedRows) && Objects.equals(updatedAt, adImport.updatedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, author, committedRows, importedRows, failedRows, updatedAt);
+    }
+
+}
@@ -0,0 +1,12 @@
+package ru.skypro.homework.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateImageException extends RuntimeException {
+
+    public DuplicateImageException() {
+        super("image is a near-duplicate of an already uploaded image");
+    }
+}
@@ -0,0 +1,12 @@
+package ru.skypro.homework.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class ModerationRejectedException extends RuntimeException {
+
+    public ModerationRejectedException() {
+        super("text contains banned words or links");
+    }
+}
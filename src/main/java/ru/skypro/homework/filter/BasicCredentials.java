@@ -0,0 +1,46 @@
+package ru.skypro.homework.filter;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Разбор заголовка HTTP Basic до аутентификации в Spring Security
+ */
+final class BasicCredentials {
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private BasicCredentials() {
+    }
+
+    /**
+     * Метод, который проверяет, передан ли в запросе заголовок HTTP Basic
+     */
+    static boolean isPresent(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return header != null && header.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length());
+    }
+
+    /**
+     * Метод, который извлекает имя пользователя из заголовка HTTP Basic без проверки пароля
+     * @return имя пользователя или null, если заголовка нет или он некорректен
+     */
+    static String username(HttpServletRequest request) {
+        if (!isPresent(request)) {
+            return null;
+        }
+        try {
+            String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+            String credentials = new String(
+                    Base64.getDecoder().decode(header.substring(BASIC_PREFIX.length()).trim()), StandardCharsets.UTF_8);
+            int colon = credentials.indexOf(':');
+            return (colon >= 0) ? credentials.substring(0, colon) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
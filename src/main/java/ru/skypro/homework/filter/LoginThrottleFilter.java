@@ -0,0 +1,44 @@
+package ru.skypro.homework.filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.skypro.homework.service.LoginAttemptService;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Фильтр, который отклоняет запросы с заголовком HTTP Basic от заблокированных аккаунтов и адресов.
+ * <br><br> Фильтр стоит в цепочке Spring Security перед BasicAuthenticationFilter, поэтому заблокированный запрос
+ * получает 429 с заголовком Retry-After без запроса пользователя к базе данных и без проверки пароля BCrypt.
+ * Неудачные и успешные попытки учитывает {@link LoginAttemptService} по событиям аутентификации.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private final LoginAttemptService loginAttemptService;
+
+    public LoginThrottleFilter(final LoginAttemptService loginAttemptService) {
+        this.loginAttemptService = loginAttemptService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        if (BasicCredentials.isPresent(request)) {
+            long retryAfter = loginAttemptService.getRetryAfter(BasicCredentials.username(request), request.getRemoteAddr());
+            if (retryAfter > 0) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+}
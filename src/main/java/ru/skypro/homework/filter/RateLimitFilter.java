@@ -0,0 +1,115 @@
+package ru.skypro.homework.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.skypro.homework.util.GcraRateLimiter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр, который ограничивает частоту запросов каждого пользователя или, для анонимных запросов, каждого адреса клиента.
+ * <br><br> Запрос относится к одной из политик {@link Policy} по методу и пути, у каждой политики свои частота и
+ * размер пачки (rate-limit.&lt;политика&gt;.rate и rate-limit.&lt;политика&gt;.burst) и свой {@link GcraRateLimiter}.
+ * При превышении частоты возвращается 429 Too Many Requests с заголовком Retry-After.
+ * <br> Фильтр стоит в цепочке Spring Security перед BasicAuthenticationFilter
+ * (см. {@link ru.skypro.homework.config.WebSecurityConfig}), поэтому запрос сверх лимита отклоняется до проверки
+ * пароля BCrypt. Ключ пользователя – имя из заголовка HTTP Basic
+ * без учета регистра, без заголовка ключом служит адрес клиента. За обратным прокси адрес клиента берется из X-Forwarded-For при настройке server.forward-headers-strategy.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Политики ограничения: чтение, изображения и аватары, загрузка файлов, комментарии и остальные изменения
+     */
+    public enum Policy {
+        READS, IMAGES, UPLOADS, COMMENTS, WRITES
+    }
+
+    private final Map<Policy, GcraRateLimiter> limiters = new EnumMap<>(Policy.class);
+    private final boolean enabled;
+
+    public RateLimitFilter(final Environment environment,
+                           @Value("${rate-limit.enabled}") boolean enabled,
+                           @Value("${rate-limit.max-keys}") int maxKeys) {
+        this.enabled = enabled;
+        for (Policy policy : Policy.values()) {
+            String prefix = "rate-limit." + policy.name().toLowerCase(Locale.ROOT);
+            limiters.put(policy, new GcraRateLimiter(
+                    environment.getRequiredProperty(prefix + ".rate", Double.class),
+                    environment.getRequiredProperty(prefix + ".burst", Integer.class),
+                    maxKeys));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        GcraRateLimiter limiter = limiters.get(resolvePolicy(request.getMethod(), request.getRequestURI()));
+        long waitNanos = limiter.tryAcquire(clientKey(request), System.nanoTime());
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Метод, который удаляет восстановившиеся корзины, чтобы количество ключей оставалось ограниченным
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval}")
+    public void sweep() {
+        long now = System.nanoTime();
+        limiters.values().forEach(limiter -> limiter.sweep(now));
+    }
+
+    /**
+     * Приватный метод, который выбирает политику по методу и пути запроса без регулярных выражений
+     */
+    private Policy resolvePolicy(String method, String path) {
+        if (path.startsWith("/images/") || path.startsWith("/avatars/")) {
+            return Policy.IMAGES;
+        }
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return Policy.READS;
+        }
+        if ("POST".equals(method) && path.startsWith("/ads/") && path.endsWith("/comments")) {
+            return Policy.COMMENTS;
+        }
+        if (("PATCH".equals(method) && path.endsWith("/image"))
+                || ("POST".equals(method) && ("/ads".equals(path) || "/ads/import".equals(path)))) {
+            return Policy.UPLOADS;
+        }
+        return Policy.WRITES;
+    }
+
+    /**
+     * Приватный метод, который возвращает ключ ограничения: имя пользователя из заголовка HTTP Basic или адрес клиента
+     */
+    private String clientKey(HttpServletRequest request) {
+        String username = BasicCredentials.username(request);
+        return (username != null) ? username.toLowerCase(Locale.ROOT) : request.getRemoteAddr();
+    }
+
+}
@@ -0,0 +1,37 @@
+package ru.skypro.homework.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Фильтр, который один раз пишет в лог время от запуска JVM до ответа на первый запрос.
+ * <br> По этой записи сравнивается время старта с профилем fast-startup и без него. После первого запроса фильтр
+ * только читает volatile-флаг.
+ */
+@Slf4j
+@Component
+public class StartupTimeFilter extends OncePerRequestFilter {
+
+    private volatile boolean firstRequestServed;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(request, response);
+        if (!firstRequestServed) {
+            firstRequestServed = true;
+            log.info("First request served {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+    }
+
+}
@@ -40,6 +40,7 @@ public class AdMapper {
         adDto.setAuthorLastName(ad.getAuthor().getLastName());
         adDto.setEmail(ad.getAuthor().getEmail());
         adDto.setPhone(ad.getAuthor().getPhone());
+        adDto.setViews(ad.getViews() != null ? ad.getViews() : 0L);
 
         Optional.ofNullable(ad.getImage())
                 .ifPresent(elem -> adDto.setImage(imagePath + ad.getImage()));
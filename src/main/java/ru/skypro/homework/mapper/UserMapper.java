@@ -4,6 +4,7 @@ import lombok.NonNull;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
+import ru.skypro.homework.dto.AuthorDto;
 import ru.skypro.homework.dto.UserDto;
 import ru.skypro.homework.dto.UserPrincipalDto;
 import ru.skypro.homework.entity.User;
@@ -38,6 +39,19 @@ public class UserMapper {
         return userDto;
     }
 
+    public AuthorDto toAuthorDto(@NonNull User user) {
+        AuthorDto authorDto = new AuthorDto();
+
+        authorDto.setId(user.getId());
+        authorDto.setFirstName(user.getFirstName());
+        authorDto.setLastName(user.getLastName());
+
+        Optional.ofNullable(user.getImage())
+                .ifPresent(elem -> authorDto.setImage(fullAvatarPath + user.getImage()));
+
+        return authorDto;
+    }
+
     public UserPrincipalDto toUserPrincipalDto(@NonNull User user) {
         UserPrincipalDto userDto = new UserPrincipalDto();
 
@@ -0,0 +1,32 @@
+package ru.skypro.homework.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.skypro.homework.entity.AdChange;
+
+import java.util.List;
+
+@Repository
+public interface AdChangeRepository extends JpaRepository<AdChange, Long> {
+    List<AdChange> findByPosGreaterThanOrderByPosAsc(Long pos, Pageable pageable);
+
+    /**
+     * Метод, который пытается взять блокировку нумерации изменений до конца транзакции
+     * @return true, если блокировка взята, false, если изменения нумерует другая транзакция
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('ad_changes_pos'))", nativeQuery = true)
+    boolean tryLockPositions();
+
+    /**
+     * Метод, который нумерует зафиксированные изменения, у которых еще нет номера в ленте.
+     * <br> Незафиксированные изменения этому запросу не видны и получат номер позже, поэтому номера в ленте
+     * идут в порядке фиксации транзакций
+     * @return количество пронумерованных изменений
+     */
+    @Modifying
+    @Query(value = "UPDATE ad_changes SET pos = nextval('ad_changes_pos_seq') WHERE pos IS NULL", nativeQuery = true)
+    int assignPositions();
+}
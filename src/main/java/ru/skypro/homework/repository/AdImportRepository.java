@@ -0,0 +1,9 @@
+package ru.skypro.homework.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.skypro.homework.entity.AdImport;
+
+@Repository
+public interface AdImportRepository extends JpaRepository<AdImport, String> {
+}
@@ -1,12 +1,31 @@
 package ru.skypro.homework.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.skypro.homework.entity.Ad;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface AdRepository extends JpaRepository<Ad, Integer> {
     List<Ad> findByAuthorId(Integer authorId);
+
+    @Query("select a from Ad a left join fetch a.author where a.pk in :pks")
+    List<Ad> findAllWithAuthorByPkIn(@Param("pks") Collection<Integer> pks);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select a from Ad a left join fetch a.author order by a.pk")
+    Stream<Ad> streamAll();
 }
@@ -1,11 +1,18 @@
 package ru.skypro.homework.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.skypro.homework.dto.CommentExportDto;
 import ru.skypro.homework.entity.Comment;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
@@ -14,4 +21,9 @@ public interface CommentRepository extends JpaRepository<Comment, Integer> {
     Optional<Comment> findCommentByAd_PkAndPk(Integer adId, Integer id);
 
     void deleteCommentByAd_PkAndPk(Integer adId, Integer id);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new ru.skypro.homework.dto.CommentExportDto(c.pk, ad.pk, author.id, author.firstName, c.text, c.createdAt) " +
+            "from Comment c left join c.ad ad left join c.author author order by c.pk")
+    Stream<CommentExportDto> streamAllForExport();
 }
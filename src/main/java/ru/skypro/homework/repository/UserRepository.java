@@ -1,10 +1,30 @@
 package ru.skypro.homework.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.skypro.homework.entity.User;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
   User findByEmail(String email);
+
+  /**
+   * Метод, который добавляет пользователя одним запросом, если пользователя с таким email еще нет
+   * @return 1, если пользователь добавлен, 0, если email уже занят
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "INSERT INTO users (email, password, first_name, last_name, phone, role) "
+          + "VALUES (:email, :password, :firstName, :lastName, :phone, CAST(:role AS user_role)) "
+          + "ON CONFLICT (email) DO NOTHING", nativeQuery = true)
+  int insertIfAbsent(@Param("email") String email,
+                     @Param("password") String password,
+                     @Param("firstName") String firstName,
+                     @Param("lastName") String lastName,
+                     @Param("phone") String phone,
+                     @Param("role") String role);
 }
@@ -0,0 +1,16 @@
+package ru.skypro.homework.service;
+
+import ru.skypro.homework.dto.AdFilterDto;
+import ru.skypro.homework.util.AdColumnIndex;
+
+/**
+ * Интерфейс для фильтрации объявлений по индексу в памяти
+ */
+public interface AdCatalogIndexService {
+
+    void index(Integer adId, Integer price, Integer authorId, boolean hasImage);
+
+    void remove(Integer adId);
+
+    AdColumnIndex.Page filter(AdFilterDto filter);
+}
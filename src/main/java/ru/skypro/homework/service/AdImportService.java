@@ -0,0 +1,14 @@
+package ru.skypro.homework.service;
+
+import ru.skypro.homework.dto.AdImportReportDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Интерфейс для массового импорта объявлений
+ */
+public interface AdImportService {
+
+    AdImportReportDto importAds(InputStream in, String importId) throws IOException;
+}
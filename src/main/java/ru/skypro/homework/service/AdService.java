@@ -1,14 +1,20 @@
 package ru.skypro.homework.service;
 
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.dto.AdChangesDto;
 import ru.skypro.homework.dto.AdDto;
+import ru.skypro.homework.dto.AdFilterDto;
 import ru.skypro.homework.dto.AdsDto;
 import ru.skypro.homework.dto.CreateOrUpdateAdDto;
 import ru.skypro.homework.dto.ExtendedAdDto;
+import ru.skypro.homework.dto.ExtendedAdsDto;
+import ru.skypro.homework.dto.PriceStatsDto;
+import ru.skypro.homework.dto.SuggestionsDto;
 import ru.skypro.homework.entity.User;
 import ru.skypro.homework.service.impl.AdServiceImpl;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Интерфейс для работы с объявлениями
@@ -20,8 +26,20 @@ public interface AdService {
 
     ExtendedAdDto get(Integer id);
 
+    ExtendedAdsDto getBatch(List<Integer> ids);
+
     AdsDto getAll();
 
+    AdsDto getAll(AdFilterDto filter);
+
+    AdsDto getTrending(Integer page, Integer size);
+
+    AdsDto getSimilar(Integer id, Integer limit);
+
+    SuggestionsDto suggest(String query, Integer limit);
+
+    PriceStatsDto getPriceStats(String keyword);
+
     AdsDto getAuthorizedUserAds();
 
     AdDto update(Integer id, CreateOrUpdateAdDto ad);
@@ -30,6 +48,8 @@ public interface AdService {
 
     AdDto findAdById(Integer id);
 
+    AdChangesDto getChanges(Long since, Integer limit);
+
     String updateImage(Integer id, MultipartFile file);
 
     byte[] getImage(String fileName) throws IOException;
@@ -1,5 +1,5 @@
 package ru.skypro.homework.service;
 
 public interface AuthService {
-    boolean login(String userName, String password);
+    boolean login(String userName, String password, String address);
 }
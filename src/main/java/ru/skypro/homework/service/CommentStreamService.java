@@ -0,0 +1,15 @@
+package ru.skypro.homework.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.skypro.homework.dto.CommentDto;
+import ru.skypro.homework.dto.CommentEventType;
+
+/**
+ * Интерфейс для рассылки событий комментариев подписчикам объявления
+ */
+public interface CommentStreamService {
+
+    SseEmitter subscribe(Integer adId);
+
+    void publish(Integer adId, CommentEventType type, CommentDto comment);
+}
@@ -0,0 +1,16 @@
+package ru.skypro.homework.service;
+
+import ru.skypro.homework.dto.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Интерфейс для выгрузки объявлений и комментариев
+ */
+public interface ExportService {
+
+    void exportAds(OutputStream out, ExportFormat format) throws IOException;
+
+    void exportComments(OutputStream out, ExportFormat format) throws IOException;
+}
@@ -0,0 +1,13 @@
+package ru.skypro.homework.service;
+
+/**
+ * Интерфейс для поиска повторно загруженных изображений объявлений
+ */
+public interface ImageDuplicateService {
+
+    Long checkDuplicate(byte[] data);
+
+    void register(Long hash, String fileName);
+
+    void unregister(String fileName);
+}
@@ -0,0 +1,19 @@
+package ru.skypro.homework.service;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.skypro.homework.dto.ExecutorStatsDto;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Интерфейс для выполнения операций с файлами изображений в отдельном пуле потоков
+ */
+public interface ImageIoService {
+
+    <T> DeferredResult<ResponseEntity<T>> submit(Callable<ResponseEntity<T>> task);
+
+    <T> DeferredResult<ResponseEntity<T>> submitWrite(Callable<ResponseEntity<T>> task);
+
+    ExecutorStatsDto getStats();
+}
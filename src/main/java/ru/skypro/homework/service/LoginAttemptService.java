@@ -0,0 +1,17 @@
+package ru.skypro.homework.service;
+
+/**
+ * Интерфейс для защиты входа от перебора паролей
+ */
+public interface LoginAttemptService {
+
+    long getRetryAfter(String username, String address);
+
+    void loginFailed(String username, String address);
+
+    void loginSucceeded(String username, String address);
+
+    boolean mayExist(String email);
+
+    void addKnownEmail(String email);
+}
@@ -0,0 +1,9 @@
+package ru.skypro.homework.service;
+
+/**
+ * Интерфейс для модерации текстов комментариев и объявлений
+ */
+public interface ModerationService {
+
+    String moderate(String text);
+}
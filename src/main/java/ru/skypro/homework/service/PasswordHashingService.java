@@ -0,0 +1,11 @@
+package ru.skypro.homework.service;
+
+import ru.skypro.homework.dto.PasswordHashingStatsDto;
+
+/**
+ * Интерфейс для хеширования и проверки паролей в отдельном ограниченном пуле потоков
+ */
+public interface PasswordHashingService {
+
+    PasswordHashingStatsDto getStats();
+}
@@ -0,0 +1,17 @@
+package ru.skypro.homework.service;
+
+import ru.skypro.homework.dto.PriceStatsDto;
+
+/**
+ * Интерфейс для статистики цен объявлений
+ */
+public interface PriceStatsService {
+
+    void add(String title, Integer price);
+
+    void update(String oldTitle, Integer oldPrice, String newTitle, Integer newPrice);
+
+    void remove(String title, Integer price);
+
+    PriceStatsDto getStats(String keyword);
+}
@@ -0,0 +1,15 @@
+package ru.skypro.homework.service;
+
+import java.util.List;
+
+/**
+ * Интерфейс для поиска похожих объявлений
+ */
+public interface SimilarAdsService {
+
+    void index(Integer adId, String title, String description);
+
+    void remove(Integer adId);
+
+    List<Integer> findSimilarIds(Integer adId, String title, String description, int limit);
+}
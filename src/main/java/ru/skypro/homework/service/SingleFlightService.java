@@ -0,0 +1,24 @@
+package ru.skypro.homework.service;
+
+import ru.skypro.homework.dto.SingleFlightStatsDto;
+
+import java.util.List;
+
+/**
+ * Интерфейс для объединения одновременных одинаковых запросов на чтение в одно выполнение
+ */
+public interface SingleFlightService {
+
+    <T, E extends Exception> T execute(String operation, Object argument, Loader<T, E> loader) throws E;
+
+    List<SingleFlightStatsDto> getStats();
+
+    /**
+     * Операция чтения, результат которой разделяют одновременные запросы
+     */
+    @FunctionalInterface
+    interface Loader<T, E extends Exception> {
+
+        T load() throws E;
+    }
+}
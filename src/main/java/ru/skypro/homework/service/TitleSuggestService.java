@@ -0,0 +1,15 @@
+package ru.skypro.homework.service;
+
+import java.util.List;
+
+/**
+ * Интерфейс для автодополнения поисковых запросов по заголовкам объявлений
+ */
+public interface TitleSuggestService {
+
+    void index(Integer adId, String title);
+
+    void remove(Integer adId);
+
+    List<String> suggest(String query, int limit);
+}
@@ -0,0 +1,17 @@
+package ru.skypro.homework.service;
+
+import java.util.List;
+
+/**
+ * Интерфейс для ранжирования популярных объявлений
+ */
+public interface TrendingService {
+
+    void registerView(Integer adId);
+
+    void registerComment(Integer adId);
+
+    void remove(Integer adId);
+
+    List<Integer> getTrendingIds(int page, int size);
+}
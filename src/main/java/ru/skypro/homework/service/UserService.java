@@ -3,8 +3,10 @@ package ru.skypro.homework.service;
 import org.springframework.web.multipart.MultipartFile;
 import ru.skypro.homework.dto.UpdateUserDto;
 import ru.skypro.homework.dto.UserDto;
+import ru.skypro.homework.dto.UsersDto;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Интерфейс для работы с пользователями
@@ -12,6 +14,8 @@ import java.io.IOException;
 public interface UserService {
     UserDto getAuthenticatedUser();
 
+    UsersDto getUsersByIds(List<Integer> ids);
+
     UpdateUserDto updateUser(UpdateUserDto updatedUser);
 
     String updateAvatar(MultipartFile file);
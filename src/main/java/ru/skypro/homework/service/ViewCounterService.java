@@ -0,0 +1,13 @@
+package ru.skypro.homework.service;
+
+/**
+ * Интерфейс для подсчета просмотров объявлений
+ */
+public interface ViewCounterService {
+
+    void registerView(Integer adId);
+
+    long getPendingViews(Integer adId);
+
+    void flush();
+}
@@ -0,0 +1,93 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.dto.AdFilterDto;
+import ru.skypro.homework.service.AdCatalogIndexService;
+import ru.skypro.homework.util.AdColumnIndex;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сервис для фильтрации объявлений по цене, автору и наличию изображения.
+ * <br><br> Поля объявлений хранятся в колоночном индексе {@link AdColumnIndex}, который при запуске приложения
+ * заполняется потоковым чтением всех объявлений и затем обновляется при изменении объявлений.
+ */
+@Slf4j
+@Service
+public class AdCatalogIndexServiceImpl implements AdCatalogIndexService {
+
+    private static final int REBUILD_CHUNK_SIZE = 10_000;
+
+    private final AdColumnIndex index = new AdColumnIndex();
+    private final AdScanner adScanner;
+    private final Set<Integer> removedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final int defaultSize;
+    private final int maxSize;
+    private volatile boolean rebuilding;
+
+    public AdCatalogIndexServiceImpl(final AdScanner adScanner,
+                                     @Value("${ads.filter.default-size}") int defaultSize,
+                                     @Value("${ads.filter.max-size}") int maxSize) {
+        this.adScanner = adScanner;
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void index(Integer adId, Integer price, Integer authorId, boolean hasImage) {
+        index.put(adId, price, authorId, hasImage);
+    }
+
+    @Override
+    public void remove(Integer adId) {
+        index.remove(adId);
+        if (rebuilding) {
+            removedDuringRebuild.add(adId);
+        }
+    }
+
+    /**
+     * Метод, который выбирает страницу объявлений по фильтру.
+     * <br> Размер страницы по умолчанию задается настройкой ads.filter.default-size и ограничен ads.filter.max-size.
+     * @param filter условия фильтрации, сортировка и страница
+     * @return количество найденных объявлений и идентификаторы объявлений страницы
+     */
+    @Override
+    public AdColumnIndex.Page filter(AdFilterDto filter) {
+        int page = (filter.getPage() != null) ? Math.max(0, filter.getPage()) : 0;
+        int size = (filter.getSize() != null) ? Math.max(0, Math.min(filter.getSize(), maxSize)) : defaultSize;
+        AdColumnIndex.Sort sort = (filter.getSort() != null)
+                ? AdColumnIndex.Sort.valueOf(filter.getSort().name())
+                : AdColumnIndex.Sort.ID;
+        long offset = (long) page * size;
+        return index.filter(filter.getMinPrice(), filter.getMaxPrice(), filter.getAuthorId(), filter.getHasImage(),
+                sort, (int) Math.min(offset, Integer.MAX_VALUE), size);
+    }
+
+    /**
+     * Метод, который при запуске приложения заполняет индекс всеми объявлениями из базы данных.
+     * <br> Объявления, измененные или удаленные во время заполнения, не перезаписываются устаревшими данными.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            long total = adScanner.scan(REBUILD_CHUNK_SIZE, chunk -> chunk.forEach(ad -> {
+                if (!removedDuringRebuild.contains(ad.getPk())) {
+                    index.putIfAbsent(ad.getPk(), ad.getPrice(), ad.getAuthor().getId(), ad.getImage() != null);
+                }
+            }));
+            log.info("Ad catalog index built for {} ads in {} ms", total, System.currentTimeMillis() - startedAt);
+        } finally {
+            rebuilding = false;
+            removedDuringRebuild.clear();
+        }
+    }
+
+}
@@ -0,0 +1,511 @@
+package ru.skypro.homework.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.homework.dto.AdChangeType;
+import ru.skypro.homework.dto.AdImportErrorDto;
+import ru.skypro.homework.dto.AdImportReportDto;
+import ru.skypro.homework.dto.AdImportRowDto;
+import ru.skypro.homework.entity.AdImport;
+import ru.skypro.homework.entity.User;
+import ru.skypro.homework.exception.ModerationRejectedException;
+import ru.skypro.homework.repository.AdImportRepository;
+import ru.skypro.homework.service.AdCatalogIndexService;
+import ru.skypro.homework.service.AdImportService;
+import ru.skypro.homework.service.AdService;
+import ru.skypro.homework.service.ImageDuplicateService;
+import ru.skypro.homework.service.ModerationService;
+import ru.skypro.homework.service.PriceStatsService;
+import ru.skypro.homework.service.SimilarAdsService;
+import ru.skypro.homework.service.TitleSuggestService;
+import ru.skypro.homework.util.PinnedHttpGet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Сервис для массового импорта объявлений из потока NDJSON.
+ * <br><br> Строки читаются и проверяются по одной, корректные копятся в пачку.
+ * Изображения пачки загружаются параллельно в отдельном пуле потоков, после чего пачка
+ * вставляется в базу данных пакетными JDBC-запросами в одной транзакции вместе с отметкой о прогрессе импорта.
+ * <br> Если импорт прервался, его можно продолжить с тем же importId – уже закоммиченные строки будут пропущены.
+ * <br> Изображения скачиваются только с публичных адресов: адрес хоста проверяется перед каждым запросом и
+ * на каждом перенаправлении, и соединение открывается именно с проверенным адресом. Запросы к loopback, link-local (в том числе 169.254.169.254), частным и
+ * неопределенным адресам отклоняются. Если задан ads.import.allowed-image-hosts, разрешены только эти хосты.
+ */
+@Slf4j
+@Service
+public class AdImportServiceImpl implements AdImportService {
+
+    private static final String NEXT_PKS_SQL = "SELECT nextval('ads_pk_seq') FROM generate_series(1, ?)";
+    private static final String INSERT_AD_SQL = "INSERT INTO ads (pk, title, price, description, image, author) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CHANGE_SQL = "INSERT INTO ad_changes (ad_pk, change_type, changed_at) VALUES (?, ?, ?)";
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_IMAGE_REDIRECTS = 3;
+
+    private final AdService adService;
+    private final SimilarAdsService similarAdsService;
+    private final TitleSuggestService titleSuggestService;
+    private final AdCatalogIndexService adCatalogIndexService;
+    private final PriceStatsService priceStatsService;
+    private final ImageDuplicateService imageDuplicateService;
+    private final ModerationService moderationService;
+    private final AdImportRepository adImportRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor imageExecutor;
+    private final ObjectReader rowReader;
+    private final String pathToImagesDir;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+    private final int maxImageSize;
+    private final int imageTimeout;
+    private final Set<String> allowedImageHosts;
+
+    public AdImportServiceImpl(final AdService adService,
+                               final SimilarAdsService similarAdsService,
+                               final TitleSuggestService titleSuggestService,
+                               final AdCatalogIndexService adCatalogIndexService,
+                               final PriceStatsService priceStatsService,
+                               final ImageDuplicateService imageDuplicateService,
+                               final ModerationService moderationService,
+                               final AdImportRepository adImportRepository,
+                               final JdbcTemplate jdbcTemplate,
+                               final PlatformTransactionManager transactionManager,
+                               @Qualifier("adImportImageExecutor") final ThreadPoolTaskExecutor imageExecutor,
+                               final ObjectMapper objectMapper,
+                               @Value("${path.to.images.folder}") String pathToImagesDir,
+                               @Value("${ads.import.chunk-size}") int chunkSize,
+                               @Value("${ads.import.max-reported-errors}") int maxReportedErrors,
+                               @Value("${ads.import.max-image-size}") int maxImageSize,
+                               @Value("${ads.import.image-timeout}") int imageTimeout,
+                               @Value("${ads.import.allowed-image-hosts}") String allowedImageHosts) {
+        this.adService = adService;
+        this.similarAdsService = similarAdsService;
+        this.titleSuggestService = titleSuggestService;
+        this.adCatalogIndexService = adCatalogIndexService;
+        this.priceStatsService = priceStatsService;
+        this.imageDuplicateService = imageDuplicateService;
+        this.moderationService = moderationService;
+        this.adImportRepository = adImportRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.imageExecutor = imageExecutor;
+        this.rowReader = objectMapper.readerFor(AdImportRowDto.class);
+        this.pathToImagesDir = pathToImagesDir;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.maxImageSize = maxImageSize;
+        this.imageTimeout = imageTimeout;
+        this.allowedImageHosts = Stream.of(allowedImageHosts.split(","))
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Метод, который импортирует объявления из потока NDJSON (одна строка – один объект {@link AdImportRowDto}).
+     * <br> Автором всех объявлений становится текущий пользователь.
+     * @param in       поток с телом запроса
+     * @param importId идентификатор прерванного импорта, который нужно продолжить, или null для нового импорта
+     * @return AdImportReportDto – отчет об импорте или null, если импорт с переданным идентификатором не найден
+     */
+    @Override
+    public AdImportReportDto importAds(InputStream in, String importId) throws IOException {
+        User author = adService.getCurrentUser();
+        AdImport job = (importId == null) ? startImport(author) : findImport(importId, author);
+        if (job == null) {
+            return null;
+        }
+
+        long startedAt = System.nanoTime();
+        ImportProgress progress = new ImportProgress();
+        long skipRows = job.getCommittedRows();
+        long line = 0;
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (line <= skipRows) {
+                progress.skipped++;
+                continue;
+            }
+            progress.processed++;
+            if (text.isBlank()) {
+                continue;
+            }
+            ImportRow row = parseRow(line, text, progress);
+            if (row != null) {
+                chunk.add(row);
+            }
+            if (chunk.size() >= chunkSize) {
+                if (!commitChunk(job, chunk, line, progress)) {
+                    return buildReport(job, progress, startedAt, false);
+                }
+                chunk.clear();
+            }
+        }
+        boolean completed = line <= skipRows || commitChunk(job, chunk, line, progress);
+        return buildReport(job, progress, startedAt, completed);
+    }
+
+    /**
+     * Приватный метод, который разбирает и проверяет одну строку импорта
+     * @return ImportRow – корректная строка или null, если строка содержит ошибку
+     */
+    private ImportRow parseRow(long line, String text, ImportProgress progress) {
+        AdImportRowDto row;
+        try {
+            row = rowReader.readValue(text);
+        } catch (JsonProcessingException e) {
+            progress.fail(line, "Malformed JSON: " + e.getOriginalMessage());
+            return null;
+        }
+        String error = validateRow(row);
+        if (error != null) {
+            progress.fail(line, error);
+            return null;
+        }
+        try {
+            row.setTitle(moderationService.moderate(row.getTitle()));
+            row.setDescription(moderationService.moderate(row.getDescription()));
+        } catch (ModerationRejectedException e) {
+            progress.fail(line, "Rejected by moderation: " + e.getMessage());
+            return null;
+        }
+        return new ImportRow(line, row);
+    }
+
+    /**
+     * Приватный метод, который проверяет поля объявления
+     * @return текст ошибки или null, если объявление корректно
+     */
+    private String validateRow(AdImportRowDto row) {
+        if (row.getTitle() == null || row.getTitle().isBlank()) {
+            return "Title is required";
+        }
+        if (row.getTitle().length() > MAX_TITLE_LENGTH) {
+            return "Title is longer than " + MAX_TITLE_LENGTH + " characters";
+        }
+        if (row.getPrice() == null || row.getPrice() < 0) {
+            return "Price must be a non-negative number";
+        }
+        return null;
+    }
+
+    /**
+     * Приватный метод, который загружает изображения пачки и вставляет ее в базу данных одной транзакцией
+     * @param lastLine номер последней прочитанной строки, он сохраняется как точка продолжения импорта
+     * @return true, если пачка закоммичена
+     */
+    private boolean commitChunk(AdImport job, List<ImportRow> chunk, long lastLine, ImportProgress progress) {
+        List<ImportRow> rows = loadImages(chunk, progress);
+        List<Integer> pks = rows.isEmpty()
+                ? Collections.emptyList()
+                : jdbcTemplate.queryForList(NEXT_PKS_SQL, Integer.class, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).pk = pks.get(i);
+        }
+        Integer authorId = job.getAuthor().getId();
+        long now = System.currentTimeMillis();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_AD_SQL, rows, rows.size(), (ps, row) -> {
+                    ps.setInt(1, row.pk);
+                    ps.setString(2, row.dto.getTitle());
+                    ps.setInt(3, row.dto.getPrice());
+                    ps.setString(4, row.dto.getDescription());
+                    ps.setString(5, row.image);
+                    ps.setInt(6, authorId);
+                });
+                jdbcTemplate.batchUpdate(INSERT_CHANGE_SQL, pks, pks.size(), (ps, pk) -> {
+                    ps.setInt(1, pk);
+                    ps.setString(2, AdChangeType.CREATE.name());
+                    ps.setLong(3, now);
+                });
+                job.setCommittedRows(lastLine);
+                job.setImportedRows(job.getImportedRows() + rows.size());
+                job.setFailedRows(job.getFailedRows() + progress.pendingFailed);
+                job.setUpdatedAt(now);
+                adImportRepository.save(job);
+                rows.forEach(row -> priceStatsService.add(row.dto.getTitle(), row.dto.getPrice()));
+            });
+        } catch (DataAccessException e) {
+            log.warn("Import {} failed to commit rows up to line {}", job.getId(), lastLine, e);
+            rows.forEach(this::deleteImage);
+            progress.errors.add(new AdImportErrorDto(lastLine,
+                    "Failed to save rows up to this line, resume the import to retry: " + e.getMostSpecificCause().getMessage()));
+            return false;
+        }
+
+        rows.forEach(row -> {
+            if (row.image != null) {
+                imageDuplicateService.register(row.imageHash, row.image);
+            }
+            similarAdsService.index(row.pk, row.dto.getTitle(), row.dto.getDescription());
+            titleSuggestService.index(row.pk, row.dto.getTitle());
+            adCatalogIndexService.index(row.pk, row.dto.getPrice(), authorId, row.image != null);
+        });
+        progress.imported += rows.size();
+        progress.pendingFailed = 0;
+        return true;
+    }
+
+    /**
+     * Приватный метод, который параллельно загружает изображения строк пачки.
+     * <br> Когда очередь пула заполнена (например, идут несколько импортов), изображение загружается в потоке импорта,
+     * поэтому импорт замедляется, а не прерывается
+     * @return строки, для которых изображение загружено или не требуется
+     */
+    private List<ImportRow> loadImages(List<ImportRow> chunk, ImportProgress progress) {
+        List<CompletableFuture<String>> images = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            String imageUrl = row.dto.getImageUrl();
+            CompletableFuture<String> image;
+            if (imageUrl == null) {
+                image = CompletableFuture.completedFuture(null);
+            } else {
+                try {
+                    image = CompletableFuture.supplyAsync(() -> downloadImage(row, imageUrl), imageExecutor);
+                } catch (RejectedExecutionException e) {
+                    image = CompletableFuture.failedFuture(new CompletionException(e));
+                }
+            }
+            images.add(image);
+        }
+
+        List<ImportRow> loaded = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportRow row = chunk.get(i);
+            try {
+                row.image = images.get(i).join();
+                loaded.add(row);
+            } catch (CompletionException e) {
+                progress.fail(row.line, "Failed to load image: " + e.getCause().getMessage());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Приватный метод, который скачивает изображение по адресу и сохраняет его в папку изображений.
+     * <br> Хеш изображения сохраняется в строке и регистрируется после фиксации пачки
+     * @return название файла изображения
+     */
+    private String downloadImage(ImportRow row, String imageUrl) {
+        try {
+            URL url = new URL(imageUrl);
+            PinnedHttpGet response = openImage(url);
+            for (int redirects = 0; isRedirect(response.getStatus()); redirects++) {
+                String location = response.getHeader("Location");
+                response.close();
+                if (location == null || redirects >= MAX_IMAGE_REDIRECTS) {
+                    throw new IllegalArgumentException("too many or invalid image URL redirects");
+                }
+                url = new URL(url, location);
+                response = openImage(url);
+            }
+            byte[] data;
+            try (PinnedHttpGet image = response) {
+                if (image.getStatus() != HttpURLConnection.HTTP_OK) {
+                    throw new IllegalArgumentException("image URL responded with status " + image.getStatus());
+                }
+                data = image.readBody(maxImageSize + 1);
+            }
+            if (data.length > maxImageSize) {
+                throw new IllegalArgumentException("image is larger than " + maxImageSize + " bytes");
+            }
+            Long imageHash = imageDuplicateService.checkDuplicate(data);
+            String fileName = UUID.randomUUID() + "." + getExtensions(url.getPath());
+            Files.write(Path.of(pathToImagesDir, fileName), data);
+            row.imageHash = imageHash;
+            return fileName;
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Приватный метод, который проверяет адрес изображения и выполняет запрос без автоматических перенаправлений.
+     * <br> Соединение открывается с проверенным IP-адресом, а не по имени хоста, чтобы повторное разрешение имени
+     * (DNS rebinding) не могло подменить адрес после проверки
+     * @throws IllegalArgumentException если адрес не http(s), хост не разрешен или указывает на непубличный адрес
+     */
+    private PinnedHttpGet openImage(URL url) throws IOException {
+        if (!"http".equals(url.getProtocol()) && !"https".equals(url.getProtocol())) {
+            throw new IllegalArgumentException("only http and https image URLs are supported");
+        }
+        String host = url.getHost().toLowerCase(Locale.ROOT);
+        if (!allowedImageHosts.isEmpty() && !allowedImageHosts.contains(host)) {
+            throw new IllegalArgumentException("image host " + host + " is not allowed");
+        }
+        InetAddress[] addresses = InetAddress.getAllByName(host);
+        for (InetAddress address : addresses) {
+            if (!isPublicAddress(address)) {
+                throw new IllegalArgumentException("image host " + host + " resolves to a non-public address");
+            }
+        }
+        IOException failure = null;
+        for (InetAddress address : addresses) {
+            try {
+                return PinnedHttpGet.open(url, address, imageTimeout);
+            } catch (ConnectException | SocketTimeoutException e) {
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Приватный метод, который проверяет, что адрес публичный: не loopback, не link-local, не частный,
+     * не неопределенный и не multicast. Для IPv6 также отклоняются уникальные локальные адреса fc00::/7
+     */
+    private boolean isPublicAddress(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet6Address) {
+            return (bytes[0] & 0xfe) != 0xfc;
+        }
+        int first = bytes[0] & 0xff;
+        int second = bytes[1] & 0xff;
+        return first != 0 && !(first == 100 && second >= 64 && second < 128);
+    }
+
+    private boolean isRedirect(int status) {
+        return status >= 300 && status < 400 && status != HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+
+    /**
+     * Приватный метод, который удаляет изображение строки, если транзакция с ней не была закоммичена
+     */
+    private void deleteImage(ImportRow row) {
+        if (row.image != null) {
+            try {
+                Files.deleteIfExists(Path.of(pathToImagesDir, row.image));
+            } catch (IOException e) {
+                log.warn("Failed to delete image {} of a rolled back import row", row.image, e);
+            }
+        }
+    }
+
+    /**
+     * Приватный метод, который получает расширение файла из пути адреса изображения
+     */
+    private String getExtensions(String path) {
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        String extension = (dot < 0) ? "" : fileName.substring(dot + 1);
+        return extension.matches("[A-Za-z0-9]{1,5}") ? extension : "jpg";
+    }
+
+    private AdImport startImport(User author) {
+        AdImport job = new AdImport();
+        job.setId(UUID.randomUUID().toString());
+        job.setAuthor(author);
+        job.setCommittedRows(0L);
+        job.setImportedRows(0L);
+        job.setFailedRows(0L);
+        job.setUpdatedAt(System.currentTimeMillis());
+        return adImportRepository.save(job);
+    }
+
+    private AdImport findImport(String importId, User author) {
+        return adImportRepository
+                .findById(importId)
+                .filter(job -> Objects.equals(job.getAuthor().getId(), author.getId()))
+                .orElse(null);
+    }
+
+    private AdImportReportDto buildReport(AdImport job, ImportProgress progress, long startedAt, boolean completed) {
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        AdImportReportDto report = new AdImportReportDto();
+        report.setImportId(job.getId());
+        report.setCommittedRows(job.getCommittedRows());
+        report.setProcessedRows(progress.processed);
+        report.setImportedRows(progress.imported);
+        report.setFailedRows(progress.failed);
+        report.setSkippedRows(progress.skipped);
+        report.setElapsedMillis(elapsedMillis);
+        report.setRowsPerSecond(elapsedMillis == 0 ? 0.0 : progress.processed * 1000.0 / elapsedMillis);
+        report.setCompleted(completed);
+        report.setErrors(progress.errors);
+        return report;
+    }
+
+    /**
+     * Строка импорта, прошедшая проверку
+     */
+    private static class ImportRow {
+        private final long line;
+        private final AdImportRowDto dto;
+        private String image;
+        private Long imageHash;
+        private int pk;
+
+        private ImportRow(long line, AdImportRowDto dto) {
+            this.line = line;
+            this.dto = dto;
+        }
+    }
+
+    /**
+     * Счетчики текущего запроса импорта
+     */
+    private class ImportProgress {
+        private long processed;
+        private long imported;
+        private long failed;
+        private long pendingFailed;
+        private long skipped;
+        private final List<AdImportErrorDto> errors = new ArrayList<>();
+
+        private void fail(long line, String message) {
+            failed++;
+            pendingFailed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new AdImportErrorDto(line, message));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package ru.skypro.homework.service.impl;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.homework.entity.Ad;
+import ru.skypro.homework.repository.AdRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Компонент для построения индексов в памяти: читает все объявления курсором и отдает их пачками.
+ * <br> После каждой пачки контекст персистентности очищается, поэтому расход памяти ограничен размером пачки.
+ */
+@Component
+class AdScanner {
+
+    private final AdRepository adRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    AdScanner(final AdRepository adRepository,
+              final EntityManager entityManager,
+              final PlatformTransactionManager transactionManager) {
+        this.adRepository = adRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Метод, который передает все объявления в обработчик пачками
+     * @param chunkSize     размер пачки
+     * @param chunkConsumer обработчик пачки
+     * @return количество прочитанных объявлений
+     */
+    long scan(int chunkSize, Consumer<List<Ad>> chunkConsumer) {
+        Long count = transactionTemplate.execute(status -> {
+            long total = 0;
+            List<Ad> chunk = new ArrayList<>(chunkSize);
+            try (Stream<Ad> ads = adRepository.streamAll()) {
+                Iterator<Ad> iterator = ads.iterator();
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == chunkSize) {
+                        chunkConsumer.accept(chunk);
+                        total += chunk.size();
+                        chunk = new ArrayList<>(chunkSize);
+                        entityManager.clear();
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(chunk);
+                total += chunk.size();
+            }
+            return total;
+        });
+        return (count != null) ? count : 0L;
+    }
+
+}
@@ -1,54 +1,117 @@
 package ru.skypro.homework.service.impl;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.skypro.homework.dto.*;
 import ru.skypro.homework.entity.Ad;
+import ru.skypro.homework.entity.AdChange;
 import ru.skypro.homework.entity.Comment;
 import ru.skypro.homework.entity.User;
 import ru.skypro.homework.exception.AdImageProcessingException;
 import ru.skypro.homework.mapper.AdMapper;
+import ru.skypro.homework.repository.AdChangeRepository;
 import ru.skypro.homework.repository.AdRepository;
 import ru.skypro.homework.repository.CommentRepository;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.service.AdCatalogIndexService;
 import ru.skypro.homework.service.AdService;
+import ru.skypro.homework.service.ImageDuplicateService;
+import ru.skypro.homework.service.ModerationService;
+import ru.skypro.homework.service.PriceStatsService;
+import ru.skypro.homework.service.SimilarAdsService;
+import ru.skypro.homework.service.SingleFlightService;
+import ru.skypro.homework.service.TitleSuggestService;
+import ru.skypro.homework.service.TrendingService;
+import ru.skypro.homework.service.ViewCounterService;
+import ru.skypro.homework.util.AdColumnIndex;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с объявлениями
+ * <br><br> Индексы в памяти, хеши изображений и файлы старых изображений изменяются только после фиксации транзакции,
+ * поэтому откаченное изменение не попадает в поиск, статистику цен и проверку дубликатов.
  */
+@Slf4j
 @Service
 public class AdServiceImpl implements AdService {
 
     private final AdRepository adRepository;
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
+    private final AdChangeRepository adChangeRepository;
+    private final ViewCounterService viewCounterService;
+    private final TrendingService trendingService;
+    private final SimilarAdsService similarAdsService;
+    private final TitleSuggestService titleSuggestService;
+    private final AdCatalogIndexService adCatalogIndexService;
+    private final PriceStatsService priceStatsService;
+    private final ModerationService moderationService;
+    private final ImageDuplicateService imageDuplicateService;
+    private final SingleFlightService singleFlightService;
     private final AdMapper mapper;
     private final String pathToImagesDir;
+    private final int changesMaxLimit;
+    private final int batchMaxSize;
 
     public AdServiceImpl(final AdRepository adRepository,
                          final UserRepository userRepository,
                          final CommentRepository commentRepository,
+                         final AdChangeRepository adChangeRepository,
+                         final ViewCounterService viewCounterService,
+                         final TrendingService trendingService,
+                         final SimilarAdsService similarAdsService,
+                         final TitleSuggestService titleSuggestService,
+                         final AdCatalogIndexService adCatalogIndexService,
+                         final PriceStatsService priceStatsService,
+                         final ModerationService moderationService,
+                         final ImageDuplicateService imageDuplicateService,
+                         final SingleFlightService singleFlightService,
                          final AdMapper mapper,
-                         @Value("${path.to.images.folder}") String pathToImagesDir) {
+                         @Value("${path.to.images.folder}") String pathToImagesDir,
+                         @Value("${ads.changes.max-limit}") int changesMaxLimit,
+                         @Value("${ads.batch.max-size}") int batchMaxSize) {
         this.adRepository = adRepository;
         this.userRepository = userRepository;
         this.commentRepository = commentRepository;
+        this.adChangeRepository = adChangeRepository;
+        this.viewCounterService = viewCounterService;
+        this.trendingService = trendingService;
+        this.similarAdsService = similarAdsService;
+        this.titleSuggestService = titleSuggestService;
+        this.adCatalogIndexService = adCatalogIndexService;
+        this.priceStatsService = priceStatsService;
+        this.moderationService = moderationService;
+        this.imageDuplicateService = imageDuplicateService;
+        this.singleFlightService = singleFlightService;
         this.mapper = mapper;
+        this.changesMaxLimit = changesMaxLimit;
+        this.batchMaxSize = batchMaxSize;
         this.pathToImagesDir = UriComponentsBuilder.newInstance()
                 .path(pathToImagesDir + "/")
                 .build()
@@ -70,38 +133,95 @@ public class AdServiceImpl implements AdService {
 
     /**
      * Метод, который создает новое объявление.
-     * <br><br> Используется метод сервиса {@link AdServiceImpl#updateImage}
+     * <br><br> Используется метод {@link AdServiceImpl#storeImage}.
+     * <br> Если изображение отклонено как дубликат, создание объявления откатывается.
+     * В журнал изменений записывается одно изменение CREATE в той же транзакции.
      * @param ad     Объект пользователя
      * @param file   фотография прикрепляемая к объявлению
      * @return AdDto – объект объявления
      */
     @Override
+    @Transactional
     public AdDto create(CreateOrUpdateAdDto ad, MultipartFile file) {
         Ad entity = new Ad();
         entity.setAuthor(getCurrentUser());
         entity.setPrice(ad.getPrice());
-        entity.setTitle(ad.getTitle());
-        entity.setDescription(ad.getDescription());
+        entity.setTitle(moderationService.moderate(ad.getTitle()));
+        entity.setDescription(moderationService.moderate(ad.getDescription()));
 
         Ad addedAd = adRepository.save(entity);
+        registerChange(addedAd.getPk(), AdChangeType.CREATE);
 
-        String fileName = updateImage(addedAd.getPk(), file);
+        String fileName = storeImage(mapper.toDto(addedAd), file);
         entity.setImage(fileName);
+        priceStatsService.add(addedAd.getTitle(), addedAd.getPrice());
+        afterCommit(() -> {
+            similarAdsService.index(addedAd.getPk(), addedAd.getTitle(), addedAd.getDescription());
+            titleSuggestService.index(addedAd.getPk(), addedAd.getTitle());
+        });
 
         return mapper.toDto(entity);
     }
 
     /**
-     * Метод, который выводит объявление по индефикатору
+     * Метод, который выводит объявление по индефикатору и засчитывает его просмотр.
+     * <br><br> Используются методы сервисов {@link ViewCounterService#registerView}, {@link TrendingService#registerView}
+     * <br> Одновременные запросы одного объявления читают его из базы данных один раз через {@link SingleFlightService#execute},
+     * просмотр засчитывается каждому запросу, и каждый получает свою копию объявления
      * @param id             идентификатор объявления
      * @return ExtendedAdDto – расширенный объект объявления
      */
     @Override
     public ExtendedAdDto get(Integer id) {
-        return adRepository
+        ExtendedAdDto loaded = singleFlightService.execute("AdService.get", id, () -> adRepository
                 .findById(id)
                 .map(mapper::toExtendedDto)
-                .orElse(null);
+                .orElse(null));
+        ExtendedAdDto ad = null;
+        if (loaded != null) {
+            ad = new ExtendedAdDto();
+            BeanUtils.copyProperties(loaded, ad);
+            viewCounterService.registerView(id);
+            trendingService.registerView(id);
+            ad.setViews(ad.getViews() + viewCounterService.getPendingViews(id));
+        }
+        return ad;
+    }
+
+    /**
+     * Метод, который выводит несколько объявлений по списку идентификаторов одним запросом к базе данных.
+     * <br><br> Объявления возвращаются в порядке запрошенных идентификаторов,
+     * на месте ненайденного объявления стоит null, а его идентификатор попадает в notFound.
+     * @param ids идентификаторы объявлений
+     * @return ExtendedAdsDto – расширенные объекты объявлений или null, если идентификаторов больше допустимого
+     */
+    @Override
+    public ExtendedAdsDto getBatch(List<Integer> ids) {
+        if (ids.size() > batchMaxSize) {
+            return null;
+        }
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        Map<Integer, ExtendedAdDto> foundAds = adRepository
+                .findAllWithAuthorByPkIn(uniqueIds)
+                .stream()
+                .collect(Collectors.toMap(Ad::getPk, mapper::toExtendedDto));
+
+        List<ExtendedAdDto> results = new ArrayList<>(ids.size());
+        List<Integer> notFound = new ArrayList<>();
+        ids.forEach(id -> {
+            ExtendedAdDto ad = foundAds.get(id);
+            results.add(ad);
+            if (ad == null) {
+                notFound.add(id);
+            }
+        });
+
+        ExtendedAdsDto adsDto = new ExtendedAdsDto();
+        adsDto.setCount(results.size() - notFound.size());
+        adsDto.setResults(results);
+        adsDto.setNotFound(notFound);
+        return adsDto;
     }
 
     /**
@@ -121,6 +241,107 @@ public class AdServiceImpl implements AdService {
                         .collect(Collectors.toList()));
     }
 
+    /**
+     * Метод, который выводит объявления, удовлетворяющие фильтру, в порядке сортировки фильтра.
+     * <br> Если в фильтре ничего не задано, выводятся все объявления методом {@link AdServiceImpl#getAll()}.
+     * <br><br> Используется метод сервиса {@link AdCatalogIndexService#filter}
+     * @param filter условия фильтрации, сортировка и страница
+     * @return AdsDto – общее количество найденных объявлений и объявления страницы
+     */
+    @Override
+    public AdsDto getAll(AdFilterDto filter) {
+        if (filter.equals(new AdFilterDto())) {
+            return getAll();
+        }
+        AdColumnIndex.Page page = adCatalogIndexService.filter(filter);
+        List<Integer> ids = Arrays.stream(page.getIds()).boxed().collect(Collectors.toList());
+        Map<Integer, Ad> foundAds = adRepository
+                .findAllWithAuthorByPkIn(ids)
+                .stream()
+                .collect(Collectors.toMap(Ad::getPk, Function.identity()));
+        List<AdDto> results = ids.stream()
+                .map(foundAds::get)
+                .filter(Objects::nonNull)
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+        return mapper.toAdsDto(page.getTotal(), results);
+    }
+
+    /**
+     * Метод, который выводит страницу популярных объявлений в порядке убывания популярности.
+     * <br><br> Используется метод сервиса {@link TrendingService#getTrendingIds}
+     * @param page номер страницы, начиная с 0
+     * @param size размер страницы
+     * @return AdsDto – популярные объявления
+     */
+    @Override
+    public AdsDto getTrending(Integer page, Integer size) {
+        List<Integer> ids = trendingService.getTrendingIds(page, size);
+        Map<Integer, Ad> foundAds = adRepository
+                .findAllWithAuthorByPkIn(ids)
+                .stream()
+                .collect(Collectors.toMap(Ad::getPk, Function.identity()));
+        List<AdDto> results = ids.stream()
+                .map(foundAds::get)
+                .filter(Objects::nonNull)
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+        return mapper.toAdsDto(results.size(), results);
+    }
+
+    /**
+     * Метод, который выводит объявления, похожие на объявление с переданным идентификатором.
+     * <br><br> Используется метод сервиса {@link SimilarAdsService#findSimilarIds}
+     * @param id    идентификатор объявления
+     * @param limit максимальное количество объявлений
+     * @return AdsDto – похожие объявления или null, если объявление не найдено
+     */
+    @Override
+    public AdsDto getSimilar(Integer id, Integer limit) {
+        Ad ad = adRepository.findById(id).orElse(null);
+        if (ad == null) {
+            return null;
+        }
+        List<Integer> ids = similarAdsService.findSimilarIds(ad.getPk(), ad.getTitle(), ad.getDescription(), limit);
+        Map<Integer, Ad> foundAds = adRepository
+                .findAllWithAuthorByPkIn(ids)
+                .stream()
+                .collect(Collectors.toMap(Ad::getPk, Function.identity()));
+        List<AdDto> results = ids.stream()
+                .map(foundAds::get)
+                .filter(Objects::nonNull)
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+        return mapper.toAdsDto(results.size(), results);
+    }
+
+    /**
+     * Метод, который выводит статистику цен всех объявлений или объявлений со словом в заголовке.
+     * <br><br> Используется метод сервиса {@link PriceStatsService#getStats}
+     * @param keyword слово из заголовка или null
+     * @return PriceStatsDto – статистика цен
+     */
+    @Override
+    public PriceStatsDto getPriceStats(String keyword) {
+        return priceStatsService.getStats(keyword);
+    }
+
+    /**
+     * Метод, который подсказывает варианты поискового запроса по заголовкам объявлений.
+     * <br><br> Используется метод сервиса {@link TitleSuggestService#suggest}
+     * @param query поисковый запрос
+     * @param limit максимальное количество подсказок
+     * @return SuggestionsDto – подсказки
+     */
+    @Override
+    public SuggestionsDto suggest(String query, Integer limit) {
+        List<String> results = titleSuggestService.suggest(query, limit);
+        SuggestionsDto suggestions = new SuggestionsDto();
+        suggestions.setCount(results.size());
+        suggestions.setResults(results);
+        return suggestions;
+    }
+
     /**
      * Метод, который выводит объявления авторизованного пользователя.
      * <br><br> Используется метод сервиса {@link AdServiceImpl#getCurrentUser()}
@@ -144,21 +365,39 @@ public class AdServiceImpl implements AdService {
     /**
      * Метод, который обновляет данные объявления в базе данных.
      * <br><br> Используются методы {@link AdServiceImpl#findAdById}, {@link AdServiceImpl#adBelongsToCurrentUserOrIsAdmin}
+     * <br> Объявление и изменение в журнале записываются в одной транзакции
      * @param id идентификатор объявления
      * @param ad объект пользователя
      * @return AdDto – объект объявления
      */
     @Override
+    @Transactional
     public AdDto update(Integer id, CreateOrUpdateAdDto ad) {
         AdDto adDto = findAdById(id);
         if (adBelongsToCurrentUserOrIsAdmin(adDto)) {
             return adRepository
                     .findById(id)
                     .map(oldAd -> {
+                        String oldTitle = oldAd.getTitle();
+                        Integer oldPrice = oldAd.getPrice();
                         oldAd.setPrice(ad.getPrice());
-                        oldAd.setTitle(ad.getTitle());
-                        oldAd.setDescription(ad.getDescription());
-                        return mapper.toDto(adRepository.save(oldAd));
+                        oldAd.setTitle(moderationService.moderate(ad.getTitle()));
+                        oldAd.setDescription(moderationService.moderate(ad.getDescription()));
+                        Ad savedAd = adRepository.save(oldAd);
+                        registerChange(savedAd.getPk(), AdChangeType.UPDATE);
+                        Integer pk = savedAd.getPk();
+                        String title = savedAd.getTitle();
+                        String description = savedAd.getDescription();
+                        Integer price = savedAd.getPrice();
+                        Integer authorId = savedAd.getAuthor().getId();
+                        boolean hasImage = savedAd.getImage() != null;
+                        priceStatsService.update(oldTitle, oldPrice, title, price);
+                        afterCommit(() -> {
+                            similarAdsService.index(pk, title, description);
+                            titleSuggestService.index(pk, title);
+                            adCatalogIndexService.index(pk, price, authorId, hasImage);
+                        });
+                        return mapper.toDto(savedAd);
                     })
                     .orElse(null);
         }
@@ -168,9 +407,12 @@ public class AdServiceImpl implements AdService {
     /**
      * Метод, который удаляет объявление
      * <br><br> Используются методы {@link AdServiceImpl#adBelongsToCurrentUserOrIsAdmin}, {@link CommentRepository#findCommentsByAd_Pk}
+     * <br> Объявление, его комментарии и изменение в журнале удаляются и записываются в одной транзакции,
+     * файл изображения удаляется после ее фиксации
      * @param adDto – объект объявления
      */
     @Override
+    @Transactional
     public boolean delete(AdDto adDto) {
         if (adBelongsToCurrentUserOrIsAdmin(adDto)) {
             List<Comment> comments = commentRepository.findCommentsByAd_Pk(adDto.getPk());
@@ -178,17 +420,16 @@ public class AdServiceImpl implements AdService {
                 commentRepository.deleteById(comment.getPk());
             });
 
-            String image = adDto.getImage();
-            if (image != null) {
-                try {
-                    Path path = Path.of(image.substring(1));
-                    Files.delete(path);
-                } catch (IOException e) {
-                    throw new AdImageProcessingException();
-                }
-            }
-
             adRepository.deleteById(adDto.getPk());
+            registerChange(adDto.getPk(), AdChangeType.DELETE);
+            priceStatsService.remove(adDto.getTitle(), adDto.getPrice());
+            afterCommit(() -> {
+                deleteImage(adDto.getImage());
+                trendingService.remove(adDto.getPk());
+                similarAdsService.remove(adDto.getPk());
+                titleSuggestService.remove(adDto.getPk());
+                adCatalogIndexService.remove(adDto.getPk());
+            });
             return true;
         }
         return false;
@@ -207,8 +448,70 @@ public class AdServiceImpl implements AdService {
                 .orElse(null);
     }
 
+    /**
+     * Метод, который выводит изменения объявлений, произошедшие после переданного токена.
+     * <br><br> Несколько изменений одного объявления схлопываются в последнее:
+     * созданные и измененные объявления попадают в results, удаленные – в deleted.
+     * <br> Новый токен – номер последнего просмотренного изменения в ленте, его нужно передать в следующем запросе.
+     * <br> Номер seq выдается при вставке и может зафиксироваться позже большего номера, поэтому лента идет по номеру pos,
+     * который выдается только зафиксированным изменениям методом {@link AdChangeRepository#assignPositions}.
+     * Изменение, зафиксированное после чтения ленты, получит номер больше токена и не будет пропущено.
+     * @param since токен, полученный в предыдущем ответе (0 – с самого начала)
+     * @param limit максимальное количество изменений за один запрос
+     * @return AdChangesDto – изменения объявлений
+     */
+    @Override
+    @Transactional
+    public AdChangesDto getChanges(Long since, Integer limit) {
+        long token = (since == null || since < 0) ? 0L : since;
+        int pageSize = (limit == null || limit <= 0 || limit > changesMaxLimit) ? changesMaxLimit : limit;
+
+        if (adChangeRepository.tryLockPositions()) {
+            adChangeRepository.assignPositions();
+        }
+        List<AdChange> changes = adChangeRepository.findByPosGreaterThanOrderByPosAsc(token, PageRequest.of(0, pageSize));
+
+        Map<Integer, AdChangeType> latestChanges = new LinkedHashMap<>();
+        for (AdChange change : changes) {
+            latestChanges.remove(change.getAdPk());
+            latestChanges.put(change.getAdPk(), change.getChangeType());
+            token = change.getPos();
+        }
+
+        List<Integer> changedPks = new ArrayList<>();
+        latestChanges.forEach((pk, type) -> {
+            if (type != AdChangeType.DELETE) {
+                changedPks.add(pk);
+            }
+        });
+        Map<Integer, Ad> changedAds = adRepository
+                .findAllWithAuthorByPkIn(changedPks)
+                .stream()
+                .collect(Collectors.toMap(Ad::getPk, Function.identity()));
+
+        List<AdDto> results = new ArrayList<>();
+        List<Integer> deleted = new ArrayList<>();
+        latestChanges.keySet().forEach(pk -> {
+            Ad ad = changedAds.get(pk);
+            if (ad != null) {
+                results.add(mapper.toDto(ad));
+            } else {
+                deleted.add(pk);
+            }
+        });
+
+        AdChangesDto changesDto = new AdChangesDto();
+        changesDto.setToken(token);
+        changesDto.setHasMore(changes.size() == pageSize);
+        changesDto.setCount(results.size());
+        changesDto.setResults(results);
+        changesDto.setDeleted(deleted);
+        return changesDto;
+    }
+
     /**
      * Метод, который выводит фотографии
+     * <br> Одновременные запросы одного файла читают его с диска один раз через {@link SingleFlightService#execute}
      * @param image название файла изображения
      * @return массив байтов
      * @throws IOException
@@ -216,47 +519,140 @@ public class AdServiceImpl implements AdService {
     @Override
     public byte[] getImage(final String fileName) throws IOException {
         Path path = Path.of(pathToImagesDir, fileName);
-        return new ByteArrayResource(Files
-                .readAllBytes(path)
-        ).getByteArray();
+        return singleFlightService.execute("AdService.getImage", fileName, () -> Files.readAllBytes(path));
     }
 
     /**
      * Метод, который обновляет фотографии по идентификатору объявления.
-     * <br>Используются методы {@link AdServiceImpl#getExtensions}, {@link AdServiceImpl#writeToFile}, {@link AdServiceImpl#adBelongsToCurrentUserOrIsAdmin}
+     * <br>Используются методы {@link AdServiceImpl#storeImage}, {@link AdServiceImpl#adBelongsToCurrentUserOrIsAdmin}
+     * <br> Объявление и изменение в журнале записываются в одной транзакции
      * @param id   идентификатор объявления
      * @param file изображение для загрузки
      * @return String – название файла изображения
      */
     @Override
+    @Transactional
     public String updateImage(final Integer id, final MultipartFile file) {
         AdDto adDto = findAdById(id);
         if (adBelongsToCurrentUserOrIsAdmin(adDto)) {
-            try {
-                String extension = getExtensions(Objects.requireNonNull(file.getOriginalFilename()));
-                byte[] data = file.getBytes();
-                String fileName = UUID.randomUUID() + "." + extension;
-                Path pathToImage = Path.of(pathToImagesDir, fileName);
-                writeToFile(pathToImage, data);
-
-                String image = adDto.getImage();
-                if (image != null) {
-                    Path path = Path.of(image.substring(1));
-                    Files.delete(path);
+            String fileName = storeImage(adDto, file);
+            registerChange(adDto.getPk(), AdChangeType.UPDATE);
+            return fileName;
+        }
+        return null;
+    }
+
+    /**
+     * Приватный метод, который записывает изображение объявления на диск и сохраняет его имя в объявлении.
+     * <br>Используются методы {@link AdServiceImpl#getExtensions}, {@link AdServiceImpl#writeToFile}
+     * <br>Перед записью изображение проверяется на дубликаты методом {@link ImageDuplicateService#checkDuplicate}
+     * <br>Хеш нового изображения регистрируется, а старое изображение удаляется после фиксации транзакции.
+     * При откате удаляется записанный файл нового изображения
+     * @param adDto объект объявления
+     * @param file  изображение для загрузки
+     * @return String – название файла изображения
+     */
+    private String storeImage(final AdDto adDto, final MultipartFile file) {
+        try {
+            String extension = getExtensions(Objects.requireNonNull(file.getOriginalFilename()));
+            byte[] data = file.getBytes();
+            Long imageHash = imageDuplicateService.checkDuplicate(data);
+            String fileName = UUID.randomUUID() + "." + extension;
+            Path pathToImage = Path.of(pathToImagesDir, fileName);
+            writeToFile(pathToImage, data);
+            afterRollback(() -> deleteFile(pathToImage));
+
+            adRepository
+                    .findById(adDto.getPk())
+                    .map(ad -> {
+                        ad.setImage(fileName);
+                        Ad savedAd = adRepository.save(ad);
+                        Integer pk = savedAd.getPk();
+                        Integer price = savedAd.getPrice();
+                        Integer authorId = savedAd.getAuthor().getId();
+                        afterCommit(() -> adCatalogIndexService.index(pk, price, authorId, true));
+                        return mapper.toDto(savedAd);
+                    });
+
+            String image = adDto.getImage();
+            afterCommit(() -> {
+                imageDuplicateService.register(imageHash, fileName);
+                deleteImage(image);
+            });
+            return fileName;
+        } catch (IOException e) {
+            throw new AdImageProcessingException();
+        }
+    }
+
+    /**
+     * Приватный метод, который записывает изменение объявления в журнал изменений
+     * @param adPk идентификатор объявления
+     * @param type тип изменения
+     */
+    private void registerChange(Integer adPk, AdChangeType type) {
+        AdChange change = new AdChange();
+        change.setAdPk(adPk);
+        change.setChangeType(type);
+        change.setChangedAt(System.currentTimeMillis());
+        adChangeRepository.save(change);
+    }
+
+    /**
+     * Приватный метод, который выполняет действие после фиксации текущей транзакции или сразу, если транзакции нет
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
                 }
+            });
+        } else {
+            action.run();
+        }
+    }
 
-                adRepository
-                        .findById(adDto.getPk())
-                        .map(ad -> {
-                            ad.setImage(fileName);
-                            return mapper.toDto(adRepository.save(ad));
-                        });
-                return fileName;
-            } catch (IOException e) {
-                throw new AdImageProcessingException();
-            }
+    /**
+     * Приватный метод, который выполняет действие после отката текущей транзакции
+     */
+    private void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Приватный метод, который удаляет файл изображения объявления и его хеш.
+     * <br> Вызывается после фиксации транзакции, поэтому ошибка удаления только записывается в лог
+     * @param image путь изображения из объявления или null
+     */
+    private void deleteImage(String image) {
+        if (image == null) {
+            return;
+        }
+        Path path = Path.of(image.substring(1));
+        imageDuplicateService.unregister(path.getFileName().toString());
+        deleteFile(path);
+    }
+
+    /**
+     * Приватный метод, который удаляет файл, записывая ошибку в лог
+     */
+    private void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete image file {}", path, e);
         }
-        return null;
     }
 
     /**
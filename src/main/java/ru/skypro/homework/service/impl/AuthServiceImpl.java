@@ -1,27 +1,84 @@
 package ru.skypro.homework.service.impl;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import ru.skypro.homework.exception.LoginThrottledException;
+import ru.skypro.homework.exception.PasswordHashingRejectedException;
 import ru.skypro.homework.service.AuthService;
+import ru.skypro.homework.service.LoginAttemptService;
+
+import java.util.UUID;
 
 @Service
 public class AuthServiceImpl implements AuthService {
 
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
     private final PasswordEncoder encoder;
+    private final LoginAttemptService loginAttemptService;
+    private final String dummyPassword;
 
     public AuthServiceImpl(UserDetailsService userDetailsService,
-                           PasswordEncoder passwordEncoder) {
+                           UserDetailsPasswordService userDetailsPasswordService,
+                           PasswordEncoder passwordEncoder,
+                           LoginAttemptService loginAttemptService) {
         this.userDetailsService = userDetailsService;
+        this.userDetailsPasswordService = userDetailsPasswordService;
         this.encoder = passwordEncoder;
+        this.loginAttemptService = loginAttemptService;
+        this.dummyPassword = passwordEncoder.encode(UUID.randomUUID().toString());
     }
 
+    /**
+     * Метод, который проверяет имя пользователя и пароль.
+     * <br> Заблокированная попытка отклоняется {@link LoginThrottledException} до поиска пользователя и проверки пароля.
+     * Для несуществующего пользователя пароль сверяется с фиктивным хешем, чтобы время ответа не выдавало,
+     * зарегистрирован ли email. Пароль с устаревшей стоимостью BCrypt перехешируется после успешного входа.
+     * @param userName имя пользователя
+     * @param password пароль
+     * @param address  адрес клиента
+     * @return true, если имя пользователя и пароль верны
+     */
     @Override
-    public boolean login(String userName, String password) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(userName);
-        return encoder.matches(password, userDetails.getPassword());
+    public boolean login(String userName, String password, String address) {
+        long retryAfter = loginAttemptService.getRetryAfter(userName, address);
+        if (retryAfter > 0) {
+            throw new LoginThrottledException(retryAfter);
+        }
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(userName);
+        } catch (UsernameNotFoundException e) {
+            encoder.matches(password, dummyPassword);
+            loginAttemptService.loginFailed(userName, address);
+            return false;
+        }
+        if (encoder.matches(password, userDetails.getPassword())) {
+            loginAttemptService.loginSucceeded(userName, address);
+            upgradePassword(userDetails, password);
+            return true;
+        }
+        loginAttemptService.loginFailed(userName, address);
+        return false;
+    }
+
+    /**
+     * Приватный метод, который перехеширует пароль с текущей стоимостью BCrypt.
+     * <br> Если пул хеширования перегружен, перехеширование откладывается до следующего входа.
+     */
+    private void upgradePassword(UserDetails userDetails, String password) {
+        if (!encoder.upgradeEncoding(userDetails.getPassword())) {
+            return;
+        }
+        try {
+            userDetailsPasswordService.updatePassword(userDetails, encoder.encode(password));
+        } catch (PasswordHashingRejectedException e) {
+            // пароль останется со старой стоимостью до следующего входа
+        }
     }
 
 }
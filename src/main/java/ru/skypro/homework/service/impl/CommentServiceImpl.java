@@ -6,6 +6,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.skypro.homework.dto.CommentDto;
+import ru.skypro.homework.dto.CommentEventType;
 import ru.skypro.homework.dto.CommentsDto;
 import ru.skypro.homework.dto.CreateOrUpdateCommentDto;
 import ru.skypro.homework.dto.Role;
@@ -17,7 +18,12 @@ import ru.skypro.homework.repository.AdRepository;
 import ru.skypro.homework.repository.CommentRepository;
 import ru.skypro.homework.repository.UserRepository;
 import ru.skypro.homework.service.CommentService;
+import ru.skypro.homework.service.CommentStreamService;
+import ru.skypro.homework.service.ModerationService;
+import ru.skypro.homework.service.SingleFlightService;
+import ru.skypro.homework.service.TrendingService;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -28,12 +34,20 @@ public class CommentServiceImpl implements CommentService {
     private final CommentMapper commentMapper;
     private final AdRepository adRepository;
     private final UserRepository userRepository;
+    private final TrendingService trendingService;
+    private final CommentStreamService commentStreamService;
+    private final ModerationService moderationService;
+    private final SingleFlightService singleFlightService;
 
-    public CommentServiceImpl(CommentRepository commentRepository, CommentMapper commentMapper, AdRepository adRepository, UserRepository userRepository) {
+    public CommentServiceImpl(CommentRepository commentRepository, CommentMapper commentMapper, AdRepository adRepository, UserRepository userRepository, TrendingService trendingService, CommentStreamService commentStreamService, ModerationService moderationService, SingleFlightService singleFlightService) {
         this.commentRepository = commentRepository;
         this.commentMapper = commentMapper;
         this.adRepository = adRepository;
         this.userRepository = userRepository;
+        this.trendingService = trendingService;
+        this.commentStreamService = commentStreamService;
+        this.moderationService = moderationService;
+        this.singleFlightService = singleFlightService;
     }
 
     /**
@@ -50,25 +64,27 @@ public class CommentServiceImpl implements CommentService {
 
     /**
      * Метод, который выводит все комментарии к определенному объявлению
+     * <br> Одновременные запросы комментариев одного объявления читают их из базы данных один раз
+     * через {@link SingleFlightService#execute}
      *
      * @param adId id объявления
      * @return возвращает List комментариев
      */
     @Override
     public CommentsDto getComments(Integer adId) {
-        return commentMapper.toCommentsDto(
-                commentRepository
-                        .findCommentsByAd_Pk(adId)
-                        .size(),
-                commentRepository
-                        .findCommentsByAd_Pk(adId)
-                        .stream()
-                        .map(commentMapper::toDto)
-                        .collect(Collectors.toList()));
+        return singleFlightService.execute("CommentService.getComments", adId, () -> {
+            List<CommentDto> comments = commentRepository
+                    .findCommentsByAd_Pk(adId)
+                    .stream()
+                    .map(commentMapper::toDto)
+                    .collect(Collectors.toList());
+            return commentMapper.toCommentsDto(comments.size(), comments);
+        });
     }
 
     /**
      * Метод, который добавляет комментарий к определенному объявлению
+     * <br> Используются методы сервисов {@link TrendingService#registerComment}, {@link CommentStreamService#publish}
      *
      * @param adId        id объявления
      * @param commentText текст комментария
@@ -77,13 +93,18 @@ public class CommentServiceImpl implements CommentService {
     @Override
     public CommentDto addComment(Integer adId, CreateOrUpdateCommentDto commentText) {
         Comment comment = new Comment();
-        comment.setText(commentText.getText());
+        comment.setText(moderationService.moderate(commentText.getText()));
         comment.setCreatedAt(System.currentTimeMillis());
         comment.setAuthor(getCurrentUser());
         Optional<Ad> foundAd = adRepository.findById(adId);
         foundAd.ifPresent(comment::setAd);
 
-        return commentMapper.toDto(commentRepository.save(comment));
+        CommentDto addedComment = commentMapper.toDto(commentRepository.save(comment));
+        foundAd.ifPresent(ad -> {
+            trendingService.registerComment(ad.getPk());
+            commentStreamService.publish(ad.getPk(), CommentEventType.CREATED, addedComment);
+        });
+        return addedComment;
     }
 
     /**
@@ -98,6 +119,7 @@ public class CommentServiceImpl implements CommentService {
         CommentDto foundComment = findCommentByAdIdAndCommentId(adId, commentId);
         if (commentBelongsToCurrentUserOrIsAdmin(foundComment)) {
             commentRepository.deleteCommentByAd_PkAndPk(adId, commentId);
+            commentStreamService.publish(adId, CommentEventType.DELETED, foundComment);
             return true;
         }
         return false;
@@ -119,9 +141,11 @@ public class CommentServiceImpl implements CommentService {
             return commentRepository
                     .findCommentByAd_PkAndPk(adId, commentId)
                     .map(oldComment -> {
-                        oldComment.setText(comment.getText());
+                        oldComment.setText(moderationService.moderate(comment.getText()));
                         oldComment.setCreatedAt(System.currentTimeMillis());
-                        return commentMapper.toDto(commentRepository.save(oldComment));
+                        CommentDto updatedComment = commentMapper.toDto(commentRepository.save(oldComment));
+                        commentStreamService.publish(adId, CommentEventType.UPDATED, updatedComment);
+                        return updatedComment;
                     })
                     .orElse(null);
         }
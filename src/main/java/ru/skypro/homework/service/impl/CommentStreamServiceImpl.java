@@ -0,0 +1,235 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.skypro.homework.dto.CommentDto;
+import ru.skypro.homework.dto.CommentEventDto;
+import ru.skypro.homework.dto.CommentEventType;
+import ru.skypro.homework.service.CommentStreamService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сервис для рассылки новых, измененных и удаленных комментариев подписчикам объявления через Server-Sent Events.
+ * <br><br> Подписчик – это асинхронный запрос {@link SseEmitter}, который не занимает поток сервлета, пока ему нечего отправлять.
+ * События складываются в ограниченную очередь подписчика и отправляются из общего пула comment-stream-,
+ * причем у каждого подписчика запланировано не больше одной отправки.
+ * <br> При переполнении очереди медленного подписчика по настройке comments.stream.overflow-policy
+ * либо отбрасывается самое старое событие (DROP_OLDEST), либо подписчик отключается (DISCONNECT).
+ * <br> Чтобы прокси не закрывали простаивающие соединения, один таймер рассылает heartbeat всем подписчикам,
+ * которым давно ничего не отправлялось, пачками по HEARTBEAT_BATCH_SIZE подписчиков на задачу пула.
+ */
+@Slf4j
+@Service
+public class CommentStreamServiceImpl implements CommentStreamService {
+
+    private static final int HEARTBEAT_BATCH_SIZE = 500;
+
+    public enum OverflowPolicy {
+        DROP_OLDEST, DISCONNECT
+    }
+
+    private final ConcurrentHashMap<Integer, Set<Subscriber>> subscribersByAd = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ThreadPoolTaskExecutor executor;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long timeout;
+    private final long heartbeatInterval;
+    private final OverflowPolicy overflowPolicy;
+
+    public CommentStreamServiceImpl(@Qualifier("commentStreamExecutor") final ThreadPoolTaskExecutor executor,
+                                    @Value("${comments.stream.max-subscribers}") int maxSubscribers,
+                                    @Value("${comments.stream.buffer-size}") int bufferSize,
+                                    @Value("${comments.stream.timeout}") long timeout,
+                                    @Value("${comments.stream.heartbeat-interval}") long heartbeatInterval,
+                                    @Value("${comments.stream.overflow-policy}") OverflowPolicy overflowPolicy) {
+        this.executor = executor;
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.heartbeatInterval = heartbeatInterval;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Метод, который подписывает текущий запрос на события комментариев объявления
+     * @param adId идентификатор объявления
+     * @return SseEmitter – поток событий или null, если достигнуто максимальное количество подписчиков
+     */
+    @Override
+    public SseEmitter subscribe(Integer adId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(adId, emitter, bufferSize);
+        subscribersByAd.compute(adId, (id, subscribers) -> {
+            Set<Subscriber> adSubscribers = (subscribers != null) ? subscribers : ConcurrentHashMap.newKeySet();
+            adSubscribers.add(subscriber);
+            return adSubscribers;
+        });
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> {
+            unsubscribe(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Метод, который рассылает событие комментария подписчикам объявления.
+     * <br> Внутри транзакции событие рассылается только после ее успешного завершения.
+     * @param adId    идентификатор объявления
+     * @param type    тип события
+     * @param comment комментарий
+     */
+    @Override
+    public void publish(Integer adId, CommentEventType type, CommentDto comment) {
+        CommentEventDto event = new CommentEventDto(type, adId, comment);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    /**
+     * Метод, который планирует heartbeat для подписчиков, которым ничего не отправлялось дольше интервала heartbeat
+     */
+    @Scheduled(fixedDelayString = "${comments.stream.heartbeat-interval}")
+    public void heartbeat() {
+        long idleSince = System.currentTimeMillis() - heartbeatInterval;
+        List<Subscriber> batch = new ArrayList<>(HEARTBEAT_BATCH_SIZE);
+        for (Set<Subscriber> subscribers : subscribersByAd.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.lastSentAt < idleSince && subscriber.scheduled.compareAndSet(false, true)) {
+                    subscriber.heartbeatDue = true;
+                    batch.add(subscriber);
+                    if (batch.size() == HEARTBEAT_BATCH_SIZE) {
+                        submitBatch(batch);
+                        batch = new ArrayList<>(HEARTBEAT_BATCH_SIZE);
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            submitBatch(batch);
+        }
+    }
+
+    /**
+     * Приватный метод, который кладет событие в очереди подписчиков объявления и планирует их отправку.
+     * <br> Вызывается одновременно из разных потоков, поэтому при DROP_OLDEST освободившееся место может занять
+     * событие другого потока: старые события отбрасываются, пока новое не поместится в очередь.
+     */
+    private void dispatch(CommentEventDto event) {
+        Set<Subscriber> subscribers = subscribersByAd.get(event.getAdId());
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(event)) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    log.debug("Disconnecting slow comment stream subscriber of ad {}", subscriber.adId);
+                    unsubscribe(subscriber);
+                    subscriber.emitter.complete();
+                    continue;
+                }
+                do {
+                    subscriber.queue.poll();
+                } while (!subscriber.queue.offer(event));
+            }
+            if (subscriber.scheduled.compareAndSet(false, true)) {
+                executor.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    private void submitBatch(List<Subscriber> batch) {
+        executor.execute(() -> batch.forEach(this::drain));
+    }
+
+    /**
+     * Приватный метод, который отправляет подписчику накопленные события или heartbeat.
+     * <br> Вызывается только владельцем флага scheduled, поэтому отправки одному подписчику не пересекаются.
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            boolean sent = false;
+            CommentEventDto event;
+            while ((event = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .name(event.getType().name())
+                        .data(event, MediaType.APPLICATION_JSON));
+                sent = true;
+            }
+            if (subscriber.heartbeatDue && !sent) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                sent = true;
+            }
+            subscriber.heartbeatDue = false;
+            if (sent) {
+                subscriber.lastSentAt = System.currentTimeMillis();
+            }
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(subscriber);
+            subscriber.queue.clear();
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (!subscriber.queue.isEmpty() && subscriber.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscriber.active.compareAndSet(true, false)) {
+            subscriberCount.decrementAndGet();
+            subscribersByAd.computeIfPresent(subscriber.adId, (id, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final Integer adId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<CommentEventDto> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean active = new AtomicBoolean(true);
+        private volatile boolean heartbeatDue;
+        private volatile long lastSentAt = System.currentTimeMillis();
+
+        private Subscriber(Integer adId, SseEmitter emitter, int bufferSize) {
+            this.adId = adId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package ru.skypro.homework.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.skypro.homework.dto.AdDto;
+import ru.skypro.homework.dto.CommentExportDto;
+import ru.skypro.homework.dto.ExportFormat;
+import ru.skypro.homework.entity.Ad;
+import ru.skypro.homework.mapper.AdMapper;
+import ru.skypro.homework.repository.AdRepository;
+import ru.skypro.homework.repository.CommentRepository;
+import ru.skypro.homework.service.ExportService;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Сервис для потоковой выгрузки объявлений и комментариев в форматах NDJSON и CSV.
+ * <br> Записи читаются из базы данных курсором и пишутся в поток по одной,
+ * поэтому расход памяти не зависит от количества выгружаемых строк.
+ */
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    /**
+     * Через сколько строк отсоединять прочитанные сущности от контекста персистентности
+     */
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private final AdRepository adRepository;
+    private final CommentRepository commentRepository;
+    private final AdMapper adMapper;
+    private final EntityManager entityManager;
+    private final ObjectWriter jsonWriter;
+
+    public ExportServiceImpl(final AdRepository adRepository,
+                             final CommentRepository commentRepository,
+                             final AdMapper adMapper,
+                             final EntityManager entityManager,
+                             final ObjectMapper objectMapper) {
+        this.adRepository = adRepository;
+        this.commentRepository = commentRepository;
+        this.adMapper = adMapper;
+        this.entityManager = entityManager;
+        this.jsonWriter = objectMapper.writer();
+    }
+
+    /**
+     * Метод, который выгружает все объявления в переданный поток
+     * @param out    поток ответа
+     * @param format формат выгрузки
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAds(OutputStream out, ExportFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write("pk,author,title,price,image\n");
+        }
+        try (Stream<Ad> ads = adRepository.streamAll()) {
+            Iterator<Ad> iterator = ads.iterator();
+            int rows = 0;
+            while (iterator.hasNext()) {
+                AdDto ad = adMapper.toDto(iterator.next());
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, ad.getPk(), ad.getAuthor(), ad.getTitle(), ad.getPrice(), ad.getImage());
+                } else {
+                    writeJsonRow(writer, ad);
+                }
+                if (++rows % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Метод, который выгружает все комментарии в переданный поток
+     * @param out    поток ответа
+     * @param format формат выгрузки
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportComments(OutputStream out, ExportFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write("pk,ad,author,authorFirstName,text,createdAt\n");
+        }
+        try (Stream<CommentExportDto> comments = commentRepository.streamAllForExport()) {
+            Iterator<CommentExportDto> iterator = comments.iterator();
+            while (iterator.hasNext()) {
+                CommentExportDto comment = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, comment.getPk(), comment.getAd(), comment.getAuthor(),
+                            comment.getAuthorFirstName(), comment.getText(), comment.getCreatedAt());
+                } else {
+                    writeJsonRow(writer, comment);
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Приватный метод, который записывает объект одной строкой JSON
+     */
+    private void writeJsonRow(Writer writer, Object row) throws IOException {
+        writer.write(jsonWriter.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    /**
+     * Приватный метод, который записывает строку CSV, экранируя значения с разделителями и кавычками
+     */
+    private void writeCsvRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+
+}
@@ -0,0 +1,144 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.exception.DuplicateImageException;
+import ru.skypro.homework.service.ImageDuplicateService;
+import ru.skypro.homework.util.BkTree;
+import ru.skypro.homework.util.PerceptualHash;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Сервис для поиска повторно загруженных изображений объявлений.
+ * <br><br> Для каждого изображения вычисляется перцептивный хеш {@link PerceptualHash#dHash},
+ * хеши всех изображений из папки изображений хранятся в {@link BkTree}.
+ * Изображение считается дубликатом, если найдется хеш на расстоянии Хэмминга не больше max-distance.
+ * <br> Что делать с дубликатом, определяет настройка images.duplicates.policy:
+ * ALLOW – ничего, FLAG – записать предупреждение в лог, REJECT – отклонить загрузку.
+ * <br> Изображение больше images.duplicates.max-pixels точек декодируется с прореживанием.
+ */
+@Slf4j
+@Service
+public class ImageDuplicateServiceImpl implements ImageDuplicateService {
+
+    public enum Policy {
+        ALLOW, FLAG, REJECT
+    }
+
+    private final BkTree tree = new BkTree();
+    private final ConcurrentHashMap<String, Long> hashesByFileName = new ConcurrentHashMap<>();
+    private final Policy policy;
+    private final int maxDistance;
+    private final long maxPixels;
+    private final String pathToImagesDir;
+    private final ForkJoinPool rebuildPool;
+
+    public ImageDuplicateServiceImpl(@Value("${images.duplicates.policy}") Policy policy,
+                                     @Value("${images.duplicates.max-distance}") int maxDistance,
+                                     @Value("${images.duplicates.max-pixels}") long maxPixels,
+                                     @Value("${images.duplicates.rebuild-parallelism}") int rebuildParallelism,
+                                     @Value("${path.to.images.folder}") String pathToImagesDir) {
+        this.policy = policy;
+        this.maxDistance = maxDistance;
+        this.maxPixels = maxPixels;
+        this.pathToImagesDir = pathToImagesDir;
+        this.rebuildPool = new ForkJoinPool(rebuildParallelism);
+    }
+
+    /**
+     * Метод, который вычисляет хеш загружаемого изображения и ищет похожие изображения.
+     * <br> При политике REJECT найденный дубликат приводит к {@link DuplicateImageException}.
+     * @param data содержимое файла изображения
+     * @return хеш изображения или null, если хеш не вычислен
+     */
+    @Override
+    public Long checkDuplicate(byte[] data) {
+        Long hash = hash(data);
+        if (hash == null || policy == Policy.ALLOW) {
+            return hash;
+        }
+        String duplicate = tree.findWithin(hash, maxDistance);
+        if (duplicate != null) {
+            if (policy == Policy.REJECT) {
+                throw new DuplicateImageException();
+            }
+            log.warn("Uploaded image is a near-duplicate of {}", duplicate);
+        }
+        return hash;
+    }
+
+    @Override
+    public void register(Long hash, String fileName) {
+        if (hash != null) {
+            hashesByFileName.put(fileName, hash);
+            tree.add(hash, fileName);
+        }
+    }
+
+    @Override
+    public void unregister(String fileName) {
+        Long hash = hashesByFileName.remove(fileName);
+        if (hash != null) {
+            tree.remove(hash, fileName);
+        }
+    }
+
+    /**
+     * Метод, который при запуске приложения параллельно вычисляет хеши всех изображений из папки изображений
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() throws IOException {
+        Path imagesDir = Path.of(pathToImagesDir);
+        if (!Files.isDirectory(imagesDir)) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        List<Path> files;
+        try (Stream<Path> list = Files.list(imagesDir)) {
+            files = list.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        rebuildPool.submit(() -> files.parallelStream().forEach(file -> {
+            String fileName = file.getFileName().toString();
+            try {
+                Long hash = PerceptualHash.dHash(Files.readAllBytes(file), maxPixels);
+                if (hash != null && hashesByFileName.putIfAbsent(fileName, hash) == null) {
+                    tree.add(hash, fileName);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to hash image {}", file, e);
+            }
+        })).join();
+        log.info("Image hash index built for {} files in {} ms", files.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildPool.shutdownNow();
+    }
+
+    /**
+     * Приватный метод, который вычисляет хеш изображения или возвращает null, если изображение не удалось прочитать.
+     * <br> Читатели ImageIO бросают на поврежденных файлах не только IOException, но и непроверяемые исключения
+     */
+    private Long hash(byte[] data) {
+        try {
+            return PerceptualHash.dHash(data, maxPixels);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to hash uploaded image", e);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package ru.skypro.homework.service.impl;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.skypro.homework.dto.ExecutorStatsDto;
+import ru.skypro.homework.service.ImageIoService;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сервис, который выполняет чтение и запись изображений в отдельном пуле imageIoExecutor.
+ * <br><br> Контроллер изображений сразу возвращает {@link DeferredResult}, и поток Tomcat освобождается для запросов API,
+ * пока файл читается или записывается. Пул ограничен images.io.threads потоками и очередью images.io.queue-capacity,
+ * поэтому всплеск запросов изображений не влияет на остальные запросы.
+ * <br> Если очередь заполнена или операция не началась за images.io.timeout, операция отменяется, и клиент получает
+ * 503 с заголовком Retry-After. Началась ли операция, решает флаг, который атомарно забирает либо поток пула,
+ * либо обработчик таймаута: {@link Future#cancel} успешно отменяет и уже выполняющуюся задачу, не останавливая ее.
+ * Если операция уже выполняется, отменить ее нельзя: для чтения клиент также получает 503 с Retry-After,
+ * а для записи – 504 без Retry-After, так как запись может завершиться и повтор записал бы изображение второй раз.
+ */
+@Service
+public class ImageIoServiceImpl implements ImageIoService {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final int queueCapacity;
+    private final long timeout;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public ImageIoServiceImpl(@Qualifier("imageIoExecutor") final ThreadPoolTaskExecutor executor,
+                              @Value("${images.io.queue-capacity}") int queueCapacity,
+                              @Value("${images.io.timeout}") long timeout) {
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Метод, который выполняет чтение файла в пуле изображений
+     * @param task операция, которая возвращает ответ контроллера
+     * @return отложенный ответ
+     */
+    @Override
+    public <T> DeferredResult<ResponseEntity<T>> submit(Callable<ResponseEntity<T>> task) {
+        return submit(task, true);
+    }
+
+    /**
+     * Метод, который выполняет запись файла в пуле изображений.
+     * <br> Если запись уже началась, но не завершилась за images.io.timeout, клиент получает 504 без Retry-After
+     * @param task операция, которая возвращает ответ контроллера
+     * @return отложенный ответ
+     */
+    @Override
+    public <T> DeferredResult<ResponseEntity<T>> submitWrite(Callable<ResponseEntity<T>> task) {
+        return submit(task, false);
+    }
+
+    private <T> DeferredResult<ResponseEntity<T>> submit(Callable<ResponseEntity<T>> task, boolean retryable) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(timeout);
+        AtomicReference<Future<?>> future = new AtomicReference<>();
+        AtomicBoolean claimed = new AtomicBoolean();
+        result.onTimeout(() -> {
+            timedOut.increment();
+            boolean notStarted = claimed.compareAndSet(false, true);
+            Future<?> submitted = future.get();
+            if (notStarted && submitted != null) {
+                submitted.cancel(false);
+            }
+            result.setResult((notStarted || retryable) ? unavailable() : ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build());
+        });
+        try {
+            future.set(executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    result.setResult(task.call());
+                } catch (Exception e) {
+                    result.setErrorResult(e);
+                }
+            }));
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            result.setResult(unavailable());
+        }
+        return result;
+    }
+
+    /**
+     * Метод, который возвращает статистику пула изображений
+     */
+    @Override
+    public ExecutorStatsDto getStats() {
+        ExecutorStatsDto stats = new ExecutorStatsDto();
+        stats.setThreads(executor.getMaxPoolSize());
+        stats.setActiveThreads(executor.getActiveCount());
+        stats.setQueueCapacity(queueCapacity);
+        stats.setQueued(executor.getThreadPoolExecutor().getQueue().size());
+        stats.setCompleted(executor.getThreadPoolExecutor().getCompletedTaskCount());
+        stats.setRejected(rejected.sum());
+        stats.setTimedOut(timedOut.sum());
+        return stats;
+    }
+
+    private <T> ResponseEntity<T> unavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+}
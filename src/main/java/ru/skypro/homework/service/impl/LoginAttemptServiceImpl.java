@@ -0,0 +1,254 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.service.LoginAttemptService;
+import ru.skypro.homework.util.BloomFilter;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сервис защиты входа от перебора паролей и подбора учетных данных.
+ * <br><br> Неудачные попытки входа считаются отдельно для каждого аккаунта и для каждого адреса клиента.
+ * После бесплатных попыток (login.throttle.account.free-attempts и login.throttle.address.free-attempts) каждая
+ * следующая неудача блокирует ключ на base-delay, удваивая задержку до max-delay. Состояние ключа упаковано в одно
+ * число {@link AtomicLong}: старшие 16 бит – количество неудач, младшие 48 бит – время окончания блокировки,
+ * и меняется через compareAndSet. Ключ удаляется через reset-after после окончания блокировки или после успешного входа.
+ * <br> Фильтр Блума известных email (login.known-emails.enabled=true) позволяет отказать несуществующему пользователю
+ * без запроса к базе данных. Фильтр знает только пользователей, зарегистрированных через этот экземпляр приложения,
+ * и пользователей, прочитанных из базы данных при старте и при обновлении раз в login.known-emails.refresh-interval
+ * (по возрастанию id от последнего прочитанного). Пользователь, добавленный другим экземпляром или в обход приложения,
+ * до ближайшего обновления получает отказ, поэтому фильтр включается только при запуске одного экземпляра.
+ * Пока фильтр не заполнен или последнее обновление не удалось, считается, что любой email может существовать.
+ */
+@Slf4j
+@Service
+public class LoginAttemptServiceImpl implements LoginAttemptService {
+
+    private static final String SELECT_EMAILS_SQL = "SELECT id, email FROM users WHERE id > ? ORDER BY id";
+    /**
+     * Сколько id перед последним прочитанным перечитывается при обновлении: id из последовательности выдаются
+     * до фиксации транзакции, и пользователь с меньшим id может появиться в таблице позже пользователя с большим
+     */
+    private static final long WATERMARK_OVERLAP = 1000;
+    private static final int TIME_BITS = 48;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final long MAX_FAILURES = 0xFFFF;
+
+    private final ConcurrentHashMap<String, AtomicLong> accounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> addresses = new ConcurrentHashMap<>();
+    private final BloomFilter knownEmails;
+    private final JdbcTemplate jdbcTemplate;
+    private final int accountFreeAttempts;
+    private final int addressFreeAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final long resetAfter;
+    private final int maxKeys;
+    private final boolean knownEmailsEnabled;
+    private volatile boolean knownEmailsLoaded;
+    private long knownEmailsWatermark;
+
+    public LoginAttemptServiceImpl(final JdbcTemplate jdbcTemplate,
+                                   @Value("${login.throttle.account.free-attempts}") int accountFreeAttempts,
+                                   @Value("${login.throttle.address.free-attempts}") int addressFreeAttempts,
+                                   @Value("${login.throttle.base-delay}") long baseDelay,
+                                   @Value("${login.throttle.max-delay}") long maxDelay,
+                                   @Value("${login.throttle.reset-after}") long resetAfter,
+                                   @Value("${login.throttle.max-keys}") int maxKeys,
+                                   @Value("${login.known-emails.enabled}") boolean knownEmailsEnabled,
+                                   @Value("${login.known-emails.expected-count}") long expectedEmails,
+                                   @Value("${login.known-emails.false-positive-rate}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountFreeAttempts = accountFreeAttempts;
+        this.addressFreeAttempts = addressFreeAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.resetAfter = resetAfter;
+        this.maxKeys = maxKeys;
+        this.knownEmailsEnabled = knownEmailsEnabled;
+        this.knownEmails = new BloomFilter(expectedEmails, falsePositiveRate);
+    }
+
+    /**
+     * Метод, который проверяет, заблокирован ли вход для аккаунта или адреса клиента
+     * @param username имя пользователя
+     * @param address  адрес клиента или null
+     * @return 0, если вход разрешен, иначе через сколько секунд можно повторить попытку
+     */
+    @Override
+    public long getRetryAfter(String username, String address) {
+        long now = System.currentTimeMillis();
+        long blockedFor = Math.max(remaining(accounts, accountKey(username), now), remaining(addresses, address, now));
+        return (blockedFor > 0) ? TimeUnit.MILLISECONDS.toSeconds(blockedFor + 999) : 0;
+    }
+
+    /**
+     * Метод, который учитывает неудачную попытку входа
+     */
+    @Override
+    public void loginFailed(String username, String address) {
+        long now = System.currentTimeMillis();
+        recordFailure(accounts, accountKey(username), accountFreeAttempts, now);
+        recordFailure(addresses, address, addressFreeAttempts, now);
+    }
+
+    /**
+     * Метод, который сбрасывает неудачные попытки аккаунта после успешного входа.
+     * <br> Попытки адреса не сбрасываются, чтобы один подобранный пароль не открывал перебор других аккаунтов.
+     */
+    @Override
+    public void loginSucceeded(String username, String address) {
+        String key = accountKey(username);
+        if (key != null) {
+            accounts.remove(key);
+        }
+    }
+
+    /**
+     * Метод, который проверяет, может ли существовать пользователь с таким email
+     * @return false, если пользователя с таким email точно нет
+     */
+    @Override
+    public boolean mayExist(String email) {
+        return !knownEmailsLoaded || (email != null && knownEmails.mightContain(email));
+    }
+
+    /**
+     * Метод, который добавляет email нового пользователя в фильтр известных email
+     */
+    @Override
+    public void addKnownEmail(String email) {
+        if (email != null) {
+            knownEmails.add(email);
+        }
+    }
+
+    /**
+     * Метод, который учитывает попытки входа по HTTP Basic, проверенные Spring Security
+     */
+    @EventListener
+    public void onAuthenticationFailure(AuthenticationFailureBadCredentialsEvent event) {
+        loginFailed(event.getAuthentication().getName(), remoteAddress(event.getAuthentication()));
+    }
+
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        loginSucceeded(event.getAuthentication().getName(), remoteAddress(event.getAuthentication()));
+    }
+
+    /**
+     * Метод, который заполняет фильтр известных email из базы данных при старте приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadKnownEmails() {
+        if (!knownEmailsEnabled) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        long count = refreshKnownEmails();
+        if (count >= 0) {
+            log.info("Known emails loaded: {} emails into {} bits in {} ms",
+                    count, knownEmails.bitSize(), System.currentTimeMillis() - startedAt);
+        }
+    }
+
+    /**
+     * Метод, который добавляет в фильтр известных email пользователей, появившихся в базе данных после прошлого чтения.
+     * <br> Если чтение не удалось, фильтр не используется для отказа до следующего удачного обновления.
+     * @return количество прочитанных email или -1, если чтение не удалось или фильтр выключен
+     */
+    @Scheduled(fixedDelayString = "${login.known-emails.refresh-interval}",
+            initialDelayString = "${login.known-emails.refresh-interval}")
+    public synchronized long refreshKnownEmails() {
+        if (!knownEmailsEnabled) {
+            return -1;
+        }
+        long[] read = {0, knownEmailsWatermark};
+        try {
+            jdbcTemplate.query(SELECT_EMAILS_SQL, (RowCallbackHandler) rs -> {
+                read[1] = Math.max(read[1], rs.getLong(1));
+                addKnownEmail(rs.getString(2));
+                read[0]++;
+            }, Math.max(0, knownEmailsWatermark - WATERMARK_OVERLAP));
+        } catch (DataAccessException e) {
+            knownEmailsLoaded = false;
+            log.warn("Failed to read known emails, lookups of unknown users are not short-circuited", e);
+            return -1;
+        }
+        knownEmailsWatermark = read[1];
+        knownEmailsLoaded = true;
+        return read[0];
+    }
+
+    /**
+     * Метод, который удаляет ключи, чьи блокировки закончились больше reset-after назад
+     */
+    @Scheduled(fixedDelayString = "${login.throttle.sweep-interval}")
+    public void sweep() {
+        long expiredBefore = System.currentTimeMillis() - resetAfter;
+        accounts.entrySet().removeIf(entry -> (entry.getValue().get() & TIME_MASK) < expiredBefore);
+        addresses.entrySet().removeIf(entry -> (entry.getValue().get() & TIME_MASK) < expiredBefore);
+    }
+
+    private long remaining(ConcurrentHashMap<String, AtomicLong> states, String key, long now) {
+        if (key == null) {
+            return 0;
+        }
+        AtomicLong state = states.get(key);
+        return (state != null) ? (state.get() & TIME_MASK) - now : 0;
+    }
+
+    /**
+     * Приватный метод, который увеличивает количество неудач ключа и продлевает его блокировку.
+     * <br> Если ключей уже max-keys, новые ключи не отслеживаются до следующей очистки.
+     */
+    private void recordFailure(ConcurrentHashMap<String, AtomicLong> states, String key, int freeAttempts, long now) {
+        if (key == null) {
+            return;
+        }
+        AtomicLong state = states.get(key);
+        if (state == null) {
+            if (states.size() >= maxKeys) {
+                return;
+            }
+            state = states.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        while (true) {
+            long current = state.get();
+            long failures = Math.min((current >>> TIME_BITS) + 1, MAX_FAILURES);
+            long delay = (failures > freeAttempts)
+                    ? Math.min(baseDelay << Math.min(failures - freeAttempts - 1, 30), maxDelay)
+                    : 0;
+            long blockedUntil = Math.max(current & TIME_MASK, now + delay);
+            if (state.compareAndSet(current, (failures << TIME_BITS) | blockedUntil)) {
+                return;
+            }
+        }
+    }
+
+    private String accountKey(String username) {
+        return (username != null) ? username.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private String remoteAddress(Authentication authentication) {
+        return (authentication.getDetails() instanceof WebAuthenticationDetails)
+                ? ((WebAuthenticationDetails) authentication.getDetails()).getRemoteAddress()
+                : null;
+    }
+
+}
@@ -0,0 +1,195 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.exception.ModerationRejectedException;
+import ru.skypro.homework.service.ModerationService;
+import ru.skypro.homework.util.AhoCorasick;
+import ru.skypro.homework.util.TextNormalizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Сервис модерации текстов по словарю запрещенных слов и ссылок.
+ * <br><br> Словарь компилируется в автомат {@link AhoCorasick}, который находит все слова словаря за один проход
+ * по тексту, нормализованному {@link TextNormalizer}. Для каждого слова задано действие:
+ * REJECT – отклонить текст, MASK – заменить слово звездочками, ALLOW – не учитывать вхождения внутри этого слова.
+ * <br> Словарь читается из внешнего файла moderation.dictionary, а если его нет – из moderation.fallback-dictionary
+ * (словарь в classpath). Словарь проверяется раз в moderation.reload-interval и компилируется заново в потоке
+ * планировщика, если изменилось время изменения файла или появился внешний файл. Если время изменения недоступно
+ * (например, ресурс внутри jar), загруженный словарь не компилируется повторно.
+ * Запросы продолжают использовать прежний автомат, пока новый не заменит его одной записью volatile-ссылки.
+ */
+@Slf4j
+@Service
+public class ModerationServiceImpl implements ModerationService {
+
+    public enum Action {
+        ALLOW, MASK, REJECT
+    }
+
+    private final Resource dictionaryResource;
+    private final Resource fallbackResource;
+    private final Action defaultAction;
+    private volatile Dictionary dictionary;
+    private Resource loadedResource;
+    private long dictionaryModifiedAt;
+
+    public ModerationServiceImpl(final ResourceLoader resourceLoader,
+                                 @Value("${moderation.dictionary}") String dictionaryLocation,
+                                 @Value("${moderation.fallback-dictionary}") String fallbackLocation,
+                                 @Value("${moderation.default-action}") Action defaultAction) {
+        this.dictionaryResource = resourceLoader.getResource(dictionaryLocation);
+        this.fallbackResource = resourceLoader.getResource(fallbackLocation);
+        this.defaultAction = defaultAction;
+        this.dictionary = new Dictionary(new ArrayList<>(), new ArrayList<>());
+        reload();
+    }
+
+    /**
+     * Метод, который проверяет текст по словарю.
+     * <br> Слова с действием MASK заменяются звездочками, слово с действием REJECT приводит к {@link ModerationRejectedException}.
+     * @param text текст или null
+     * @return текст с замаскированными словами
+     */
+    @Override
+    public String moderate(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        Dictionary current = dictionary;
+        TextNormalizer.Normalized normalized = TextNormalizer.normalize(text);
+        List<AhoCorasick.Match> matches = current.automaton.findAll(normalized.getText());
+        if (matches.isEmpty()) {
+            return text;
+        }
+
+        List<AhoCorasick.Match> allowed = new ArrayList<>();
+        for (AhoCorasick.Match match : matches) {
+            if (current.actions[match.getPattern()] == Action.ALLOW) {
+                allowed.add(match);
+            }
+        }
+        char[] moderated = null;
+        for (AhoCorasick.Match match : matches) {
+            Action action = current.actions[match.getPattern()];
+            if (action == Action.ALLOW || isInside(match, allowed)) {
+                continue;
+            }
+            if (action == Action.REJECT) {
+                throw new ModerationRejectedException();
+            }
+            if (moderated == null) {
+                moderated = text.toCharArray();
+            }
+            int from = normalized.originOf(match.getStart());
+            int to = normalized.originOf(match.getEnd() - 1);
+            for (int i = from; i <= to; i++) {
+                if (!Character.isWhitespace(moderated[i])) {
+                    moderated[i] = '*';
+                }
+            }
+        }
+        return (moderated != null) ? new String(moderated) : text;
+    }
+
+    /**
+     * Метод, который компилирует словарь заново, если его файл изменился или сменился источник словаря
+     */
+    @Scheduled(fixedDelayString = "${moderation.reload-interval}")
+    public void reload() {
+        Resource resource = dictionaryResource.exists() ? dictionaryResource : fallbackResource;
+        if (!resource.exists()) {
+            if (loadedResource == null) {
+                log.warn("Moderation dictionary {} not found, texts are not moderated", dictionaryResource);
+            }
+            return;
+        }
+        long modifiedAt;
+        try {
+            modifiedAt = resource.lastModified();
+        } catch (IOException e) {
+            modifiedAt = 0;
+        }
+        if (resource == loadedResource && (modifiedAt == 0 || modifiedAt == dictionaryModifiedAt)) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        Map<String, Action> terms = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parseTerm(line.trim(), terms);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read moderation dictionary {}", resource, e);
+            return;
+        }
+        dictionary = new Dictionary(new ArrayList<>(terms.keySet()), new ArrayList<>(terms.values()));
+        loadedResource = resource;
+        dictionaryModifiedAt = modifiedAt;
+        log.info("Moderation dictionary {} compiled: {} terms, {} states in {} ms",
+                resource, terms.size(), dictionary.automaton.stateCount(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Приватный метод, который разбирает строку словаря вида [ACTION] term.
+     * <br> Если одно нормализованное слово встречается несколько раз, ALLOW важнее REJECT, а REJECT важнее MASK.
+     */
+    private void parseTerm(String line, Map<String, Action> terms) {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return;
+        }
+        Action action = defaultAction;
+        String term = line;
+        int space = line.indexOf(' ');
+        if (space > 0) {
+            try {
+                action = Action.valueOf(line.substring(0, space).toUpperCase(Locale.ROOT));
+                term = line.substring(space + 1).trim();
+            } catch (IllegalArgumentException e) {
+                action = defaultAction;
+            }
+        }
+        String normalized = TextNormalizer.normalize(term).getText();
+        if (!normalized.isEmpty()) {
+            terms.merge(normalized, action, (previous, next) -> (previous == Action.ALLOW || next == Action.ALLOW)
+                    ? Action.ALLOW
+                    : (previous.ordinal() > next.ordinal()) ? previous : next);
+        }
+    }
+
+    private boolean isInside(AhoCorasick.Match match, List<AhoCorasick.Match> allowed) {
+        for (AhoCorasick.Match allow : allowed) {
+            if (allow.getStart() <= match.getStart() && match.getEnd() <= allow.getEnd()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Dictionary {
+
+        private final AhoCorasick automaton;
+        private final Action[] actions;
+
+        private Dictionary(List<String> terms, List<Action> actions) {
+            this.automaton = new AhoCorasick(terms);
+            this.actions = actions.toArray(new Action[0]);
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.dto.PasswordHashingStatsDto;
+import ru.skypro.homework.exception.PasswordHashingRejectedException;
+import ru.skypro.homework.service.PasswordHashingService;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сервис хеширования и проверки паролей BCrypt, он же {@link PasswordEncoder} приложения.
+ * <br><br> Каждое хеширование и каждая проверка выполняются в отдельном пуле passwordHashingExecutor размером
+ * с количество ядер и с ограниченной очередью, поэтому всплеск входов не занимает процессор, нужный остальным запросам.
+ * Если очередь заполнена или задача не выполнена за security.password.timeout, запрос сразу отклоняется
+ * {@link PasswordHashingRejectedException} (503 Service Unavailable). Отмененная задача сразу удаляется из очереди,
+ * чтобы не занимать место до того, как ее возьмет поток пула.
+ * <br> Стоимость BCrypt задается security.password.strength. Хеш с другой стоимостью считается устаревшим
+ * ({@link PasswordHashingServiceImpl#upgradeEncoding}), и пароль перехешируется при следующем успешном входе.
+ * При старте измеряется время одного хеша и в лог пишется стоимость, подходящая под security.password.target-hash-time.
+ */
+@Slf4j
+@Service
+public class PasswordHashingServiceImpl implements PasswordHashingService, PasswordEncoder {
+
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_STRENGTH = 31;
+
+    private final ThreadPoolTaskExecutor executor;
+    private final BCryptPasswordEncoder bcrypt;
+    private final int strength;
+    private final int queueCapacity;
+    private final long timeout;
+    private final long targetHashTime;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    public PasswordHashingServiceImpl(@Qualifier("passwordHashingExecutor") final ThreadPoolTaskExecutor executor,
+                                      @Value("${security.password.strength}") int strength,
+                                      @Value("${security.password.queue-capacity}") int queueCapacity,
+                                      @Value("${security.password.timeout}") long timeout,
+                                      @Value("${security.password.target-hash-time}") long targetHashTime) {
+        this.executor = executor;
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.queueCapacity = queueCapacity;
+        this.timeout = timeout;
+        this.targetHashTime = targetHashTime;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Метод, который проверяет, создан ли хеш с другой стоимостью и нужно ли перехешировать пароль
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || !encodedPassword.startsWith("$2")) {
+            return false;
+        }
+        int dollar = encodedPassword.indexOf('$', 1);
+        try {
+            return dollar > 0 && Integer.parseInt(encodedPassword.substring(dollar + 1, dollar + 3)) != strength;
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Метод, который возвращает статистику пула: размер очереди, отказы, время ожидания в очереди и время хеширования
+     */
+    @Override
+    public PasswordHashingStatsDto getStats() {
+        long count = completed.sum();
+        PasswordHashingStatsDto stats = new PasswordHashingStatsDto();
+        stats.setStrength(strength);
+        stats.setThreads(executor.getMaxPoolSize());
+        stats.setQueueCapacity(queueCapacity);
+        stats.setQueued(executor.getThreadPoolExecutor().getQueue().size());
+        stats.setCompleted(count);
+        stats.setRejected(rejected.sum());
+        stats.setMeanQueueTimeMillis((count > 0) ? toMillis(queueNanos.sum()) / count : 0);
+        stats.setMaxQueueTimeMillis(toMillis(maxQueueNanos.get()));
+        stats.setMeanHashTimeMillis((count > 0) ? toMillis(hashNanos.sum()) / count : 0);
+        stats.setMaxHashTimeMillis(toMillis(maxHashNanos.get()));
+        return stats;
+    }
+
+    /**
+     * Метод, который измеряет время хеширования с текущей стоимостью и пишет в лог стоимость под целевое время
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void benchmark() {
+        long startedAt = System.nanoTime();
+        bcrypt.encode("benchmark-password");
+        double millis = Math.max(toMillis(System.nanoTime() - startedAt), 0.001);
+        int recommended = strength + (int) Math.floor(Math.log(targetHashTime / millis) / Math.log(2));
+        log.info("BCrypt strength {} takes {} ms per hash, strength {} fits the target of {} ms",
+                strength, Math.round(millis), Math.max(MIN_STRENGTH, Math.min(MAX_STRENGTH, recommended)), targetHashTime);
+    }
+
+    /**
+     * Приватный метод, который выполняет задачу в пуле хеширования и ждет ее результата
+     * @throws PasswordHashingRejectedException если пул перегружен
+     */
+    private <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    long finishedAt = System.nanoTime();
+                    record(startedAt - submittedAt, queueNanos, maxQueueNanos);
+                    record(finishedAt - startedAt, hashNanos, maxHashNanos);
+                    completed.increment();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException();
+        }
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (future.cancel(false)) {
+                executor.getThreadPoolExecutor().purge();
+            }
+            rejected.increment();
+            throw new PasswordHashingRejectedException();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void record(long nanos, LongAdder total, AtomicLong max) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    private double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+}
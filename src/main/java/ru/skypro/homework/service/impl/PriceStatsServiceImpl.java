@@ -0,0 +1,382 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.homework.dto.PriceBucketDto;
+import ru.skypro.homework.dto.PriceStatsDto;
+import ru.skypro.homework.repository.AdChangeRepository;
+import ru.skypro.homework.service.PriceStatsService;
+import ru.skypro.homework.util.PriceSketch;
+import ru.skypro.homework.util.TitleWords;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сервис статистики цен объявлений: всех объявлений и объявлений со словом в заголовке.
+ * <br><br> Для каждого набора объявлений хранится скетч {@link PriceSketch}, который обновляется при создании,
+ * изменении и удалении объявлений, поэтому запрос статистики не читает цены из базы данных.
+ * Количество отслеживаемых слов ограничено настройкой ads.stats.max-keywords. Скетч слова содержит цены всех
+ * объявлений с этим словом: при построении скетч создается на первом объявлении со словом, а после построения –
+ * только пока ни одно слово не осталось без скетча из-за ограничения. Слово, которое не поместилось, и все новые слова
+ * после него не отслеживаются до следующего построения скетчей.
+ * <br> Изменение, переданное внутри транзакции, применяется к скетчам после ее фиксации. Пока транзакция
+ * фиксируется, она считается незавершенной, поэтому под блокировкой скетчей закоммиченные изменения либо уже применены,
+ * либо есть незавершенные транзакции.
+ * <br> Скетчи периодически сохраняются в таблицу ad_price_stats вместе с последним номером pos в ad_changes, который
+ * выдается только зафиксированным изменениям ({@link AdChangeRepository#assignPositions}). Номер читается до блокировки
+ * скетчей, и скетчи сохраняются, только если под блокировкой нет незавершенных транзакций, поэтому все изменения
+ * с номером не больше сохраненного уже применены к скетчам. При запуске приложения скетчи загружаются, если все
+ * зафиксированные изменения пронумерованы и последний номер не изменился, иначе строятся заново по базе данных.
+ */
+@Slf4j
+@Service
+public class PriceStatsServiceImpl implements PriceStatsService {
+
+    private static final String SELECT_SNAPSHOT_SQL = "SELECT keyword, sketch, checkpoint_pos, keywords_complete FROM ad_price_stats";
+    private static final String DELETE_SNAPSHOT_SQL = "DELETE FROM ad_price_stats";
+    private static final String INSERT_SNAPSHOT_SQL = "INSERT INTO ad_price_stats (keyword, sketch, checkpoint_pos, keywords_complete) VALUES (?, ?, ?, ?)";
+    private static final String MAX_POSITION_SQL = "SELECT COALESCE(MAX(pos), 0) FROM ad_changes";
+    private static final String PENDING_CHANGES_SQL = "SELECT EXISTS (SELECT 1 FROM ad_changes WHERE pos IS NULL)";
+    private static final String GLOBAL_KEYWORD = "";
+    private static final int REBUILD_CHUNK_SIZE = 10_000;
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final AdScanner adScanner;
+    private final AdChangeRepository adChangeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double relativeAccuracy;
+    private final int maxKeywords;
+    private final int maxKeywordLength;
+    private PriceSketch global;
+    private Map<String, PriceSketch> byKeyword = new HashMap<>();
+    private boolean keywordsComplete;
+    private long version;
+    private long persistedVersion;
+    private int committing;
+    private boolean loaded;
+    private boolean rebuilding;
+    private boolean changedDuringRebuild;
+
+    public PriceStatsServiceImpl(final AdScanner adScanner,
+                                 final AdChangeRepository adChangeRepository,
+                                 final JdbcTemplate jdbcTemplate,
+                                 final PlatformTransactionManager transactionManager,
+                                 @Value("${ads.stats.relative-accuracy}") double relativeAccuracy,
+                                 @Value("${ads.stats.max-keywords}") int maxKeywords,
+                                 @Value("${ads.stats.max-keyword-length}") int maxKeywordLength) {
+        this.adScanner = adScanner;
+        this.adChangeRepository = adChangeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxKeywords = maxKeywords;
+        this.maxKeywordLength = maxKeywordLength;
+        this.global = new PriceSketch(relativeAccuracy);
+    }
+
+    @Override
+    public void add(String title, Integer price) {
+        afterCommit(() -> apply(title, price, true));
+    }
+
+    @Override
+    public void update(String oldTitle, Integer oldPrice, String newTitle, Integer newPrice) {
+        afterCommit(() -> {
+            apply(oldTitle, oldPrice, false);
+            apply(newTitle, newPrice, true);
+        });
+    }
+
+    @Override
+    public void remove(String title, Integer price) {
+        afterCommit(() -> apply(title, price, false));
+    }
+
+    /**
+     * Метод, который выводит статистику цен всех объявлений или объявлений со словом в заголовке.
+     * <br> Квантили оцениваются с относительной погрешностью ads.stats.relative-accuracy,
+     * гистограмма содержит точные количества цен в непустых корзинах [2^k, 2^(k+1)).
+     * @param keyword слово из заголовка или null для всех объявлений
+     * @return PriceStatsDto – статистика цен
+     */
+    @Override
+    public synchronized PriceStatsDto getStats(String keyword) {
+        String word = TitleWords.of(keyword, maxKeywordLength).stream().findFirst().orElse(null);
+        PriceSketch sketch = (word == null) ? global : byKeyword.get(word);
+
+        PriceStatsDto stats = new PriceStatsDto();
+        stats.setKeyword(word);
+        stats.setCount(0L);
+        stats.setHistogram(new ArrayList<>());
+        if (sketch == null || sketch.isEmpty()) {
+            return stats;
+        }
+        stats.setCount(sketch.getCount());
+        stats.setMin(sketch.quantile(0));
+        stats.setMax(sketch.quantile(1));
+        stats.setMean(Math.round((double) sketch.getSum() / sketch.getCount()));
+        stats.setMedian(sketch.quantile(0.5));
+        stats.setP90(sketch.quantile(0.9));
+        long[] histogram = sketch.getHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) {
+                stats.getHistogram().add(new PriceBucketDto((i == 0) ? 0L : 1L << i, 1L << (i + 1), histogram[i]));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Метод, который при запуске приложения загружает сохраненные скетчи или строит их заново по базе данных
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (this) {
+            rebuilding = true;
+            changedDuringRebuild = false;
+        }
+        Long position = positionChanges();
+        Map<String, PriceSketch> sketches = new HashMap<>();
+        boolean[] complete = {true};
+        Boolean upToDate = (position == null) ? Boolean.FALSE : jdbcTemplate.query(SELECT_SNAPSHOT_SQL, rs -> {
+            boolean matches = false;
+            while (rs.next()) {
+                if (rs.getLong("checkpoint_pos") != position) {
+                    return false;
+                }
+                sketches.put(rs.getString("keyword"), PriceSketch.decode(rs.getString("sketch"), relativeAccuracy));
+                complete[0] &= rs.getBoolean("keywords_complete");
+                matches = true;
+            }
+            return matches;
+        });
+
+        if (Boolean.TRUE.equals(upToDate) && sketches.containsKey(GLOBAL_KEYWORD)) {
+            synchronized (this) {
+                if (!changedDuringRebuild) {
+                    global = sketches.remove(GLOBAL_KEYWORD);
+                    byKeyword = sketches;
+                    keywordsComplete = complete[0];
+                    persistedVersion = version;
+                    rebuilding = false;
+                    loaded = true;
+                    log.info("Price stats loaded for {} keywords", byKeyword.size());
+                    return;
+                }
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * Метод, который сохраняет скетчи в базу данных, если они изменились после прошлого сохранения.
+     * <br> Если есть незавершенные транзакции с изменениями цен, сохранение откладывается до следующего запуска.
+     * Запросы к базе данных выполняются без блокировки скетчей
+     */
+    @Scheduled(fixedDelayString = "${ads.stats.persist-interval}")
+    public void persist() {
+        synchronized (this) {
+            if (!loaded || rebuilding || version == persistedVersion) {
+                return;
+            }
+        }
+        long position;
+        try {
+            Long positioned = positionChanges();
+            position = (positioned != null) ? positioned : maxPosition();
+        } catch (DataAccessException e) {
+            log.warn("Failed to persist price stats", e);
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        long persistingVersion;
+        synchronized (this) {
+            if (!loaded || rebuilding || version == persistedVersion || committing > 0) {
+                return;
+            }
+            persistingVersion = version;
+            boolean complete = keywordsComplete;
+            rows.add(new Object[]{GLOBAL_KEYWORD, global.encode(), position, complete});
+            byKeyword.forEach((keyword, sketch) -> rows.add(new Object[]{keyword, sketch.encode(), position, complete}));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_SNAPSHOT_SQL);
+                jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, rows);
+            });
+            synchronized (this) {
+                persistedVersion = Math.max(persistedVersion, persistingVersion);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to persist price stats", e);
+        }
+    }
+
+    @PreDestroy
+    public void persistOnShutdown() {
+        persist();
+    }
+
+    /**
+     * Приватный метод, который строит скетчи по всем объявлениям из базы данных.
+     * <br> Если объявления менялись во время построения, скетчи строятся заново, но не больше MAX_REBUILD_ATTEMPTS раз.
+     */
+    private void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            synchronized (this) {
+                rebuilding = true;
+                changedDuringRebuild = false;
+            }
+            PriceSketch rebuiltGlobal = new PriceSketch(relativeAccuracy);
+            Map<String, PriceSketch> rebuiltByKeyword = new HashMap<>();
+            boolean[] complete = {true};
+            long total = adScanner.scan(REBUILD_CHUNK_SIZE, chunk -> chunk.forEach(ad -> {
+                if (ad.getPrice() != null) {
+                    rebuiltGlobal.add(ad.getPrice());
+                    for (String word : TitleWords.of(ad.getTitle(), maxKeywordLength)) {
+                        PriceSketch sketch = rebuiltByKeyword.get(word);
+                        if (sketch == null && rebuiltByKeyword.size() < maxKeywords) {
+                            sketch = new PriceSketch(relativeAccuracy);
+                            rebuiltByKeyword.put(word, sketch);
+                        }
+                        if (sketch != null) {
+                            sketch.add(ad.getPrice());
+                        } else {
+                            complete[0] = false;
+                        }
+                    }
+                }
+            }));
+            synchronized (this) {
+                global = rebuiltGlobal;
+                byKeyword = rebuiltByKeyword;
+                keywordsComplete = complete[0];
+                rebuilding = false;
+                loaded = true;
+                version++;
+                if (!changedDuringRebuild) {
+                    log.info("Price stats built for {} ads and {} keywords in {} ms",
+                            total, byKeyword.size(), System.currentTimeMillis() - startedAt);
+                    return;
+                }
+            }
+        }
+        log.warn("Ads kept changing while price stats were built, stats may be inaccurate until the next restart");
+    }
+
+    /**
+     * Приватный метод, который нумерует зафиксированные изменения и возвращает последний номер pos
+     * @return последний номер или null, если остались зафиксированные изменения без номера
+     * (их нумерует другая транзакция)
+     */
+    private Long positionChanges() {
+        return transactionTemplate.execute(status -> {
+            if (adChangeRepository.tryLockPositions()) {
+                adChangeRepository.assignPositions();
+            }
+            return Boolean.TRUE.equals(jdbcTemplate.queryForObject(PENDING_CHANGES_SQL, Boolean.class))
+                    ? null
+                    : maxPosition();
+        });
+    }
+
+    private long maxPosition() {
+        return jdbcTemplate.queryForObject(MAX_POSITION_SQL, Long.class);
+    }
+
+    /**
+     * Приватный метод, который применяет изменение после фиксации текущей транзакции или сразу, если транзакции нет.
+     * <br> С начала фиксации до применения изменения транзакция учитывается в счетчике committing
+     */
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (this) {
+                change.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean counted;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                synchronized (PriceStatsServiceImpl.this) {
+                    committing++;
+                    counted = true;
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (PriceStatsServiceImpl.this) {
+                    if (counted) {
+                        committing--;
+                    }
+                    if (status == STATUS_COMMITTED) {
+                        change.run();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Приватный метод, который добавляет цену в скетчи или удаляет ее из скетчей.
+     * <br> Скетч слова удаляется, когда в нем не остается цен. Новое слово получает скетч, только если все слова
+     * отслеживаются: иначе у слова могут быть объявления, цены которых не попали в скетчи.
+     */
+    private void apply(String title, Integer price, boolean add) {
+        if (price == null) {
+            return;
+        }
+        if (rebuilding) {
+            changedDuringRebuild = true;
+        }
+        version++;
+        update(global, price, add);
+        Set<String> words = TitleWords.of(title, maxKeywordLength);
+        for (String word : words) {
+            PriceSketch sketch = byKeyword.get(word);
+            if (sketch == null && add) {
+                if (keywordsComplete && byKeyword.size() < maxKeywords) {
+                    sketch = new PriceSketch(relativeAccuracy);
+                    byKeyword.put(word, sketch);
+                } else {
+                    keywordsComplete = false;
+                }
+            }
+            if (sketch != null) {
+                update(sketch, price, add);
+                if (sketch.isEmpty()) {
+                    byKeyword.remove(word);
+                }
+            }
+        }
+    }
+
+    private void update(PriceSketch sketch, int price, boolean add) {
+        if (add) {
+            sketch.add(price);
+        } else {
+            sketch.remove(price);
+        }
+    }
+
+}
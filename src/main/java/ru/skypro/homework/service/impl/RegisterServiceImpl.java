@@ -3,8 +3,9 @@ package ru.skypro.homework.service.impl;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import ru.skypro.homework.dto.RegisterDto;
-import ru.skypro.homework.entity.User;
+import ru.skypro.homework.dto.Role;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.service.LoginAttemptService;
 import ru.skypro.homework.service.RegisterService;
 
 import java.util.regex.Pattern;
@@ -15,58 +16,70 @@ import java.util.regex.Pattern;
 @Service
 public class RegisterServiceImpl implements RegisterService {
 
-    private static final String PHONE_NUMBER_PATTERN = "\\+7\\s?\\(?\\d{3}\\)?\\s?\\d{3}-?\\d{2}-?\\d{2}";
+    private static final Pattern PHONE_NUMBER_PATTERN =
+            Pattern.compile("\\+7\\s?\\(?\\d{3}\\)?\\s?\\d{3}-?\\d{2}-?\\d{2}");
     private final PasswordEncoder encoder;
     private final UserRepository userRepository;
+    private final LoginAttemptService loginAttemptService;
 
     public RegisterServiceImpl(final PasswordEncoder encoder,
-                               final UserRepository userRepository) {
+                               final UserRepository userRepository,
+                               final LoginAttemptService loginAttemptService) {
         this.encoder = encoder;
         this.userRepository = userRepository;
+        this.loginAttemptService = loginAttemptService;
     }
 
     /**
      * Метод, который сохраняет в базу данных нового пользователя
      * <br> Используется метод сервиса {@link RegisterServiceImpl#validateRegister}
      * <br> Также Используется класс PasswordEncoder, нужен для выполнения одностороннего преобразования пароля, обеспечивающего безопасное хранение пароля
+     * <br> Пароль хешируется только после успешной проверки данных, а пользователь добавляется одним запросом
+     * {@link UserRepository#insertIfAbsent}: занятый email определяется ограничением уникальности users.email,
+     * поэтому одновременные регистрации с одним email не создают двух пользователей
      * @param register
      * @return
      */
     @Override
     public boolean registerUser(RegisterDto register) {
-        User foundUser = userRepository.findByEmail(register.getUsername());
-        if (foundUser != null || !validateRegister(register)) {
+        if (!validateRegister(register)) {
             return false;
         }
 
         String password = encoder.encode(register.getPassword());
-
-        User newUser = new User();
-        newUser.setEmail(register.getUsername());
-        newUser.setPassword(password);
-        newUser.setFirstName(register.getFirstName());
-        newUser.setLastName(register.getLastName());
-        newUser.setPhone(register.getPhone());
-        newUser.setRole(register.getRole());
-        userRepository.save(newUser);
+        Role role = (register.getRole() != null) ? register.getRole() : Role.USER;
+        int inserted = userRepository.insertIfAbsent(
+                register.getUsername(),
+                password,
+                register.getFirstName(),
+                register.getLastName(),
+                register.getPhone(),
+                role.name());
+        if (inserted == 0) {
+            return false;
+        }
+        loginAttemptService.addKnownEmail(register.getUsername());
 
         return true;
     }
 
     /**
      * Метод, который проверяет что данные были переданы корректно
+     * <br> Сначала проверяются длины полей, и только потом номер телефона заранее скомпилированным шаблоном
      * @param register
      * @return
      */
     public boolean validateRegister(RegisterDto register) {
-        Pattern pattern = Pattern.compile(PHONE_NUMBER_PATTERN);
-        boolean matcher = pattern.matcher(register.getPhone()).matches();
+        return hasLength(register.getUsername(), 4, 32)
+                && hasLength(register.getPassword(), 8, 16)
+                && hasLength(register.getFirstName(), 2, 16)
+                && hasLength(register.getLastName(), 2, 16)
+                && register.getPhone() != null
+                && PHONE_NUMBER_PATTERN.matcher(register.getPhone()).matches();
+    }
 
-        return (register.getUsername().length() >= 4 && register.getUsername().length() <= 32)
-                && (register.getPassword().length() >= 8 && register.getPassword().length() <= 16)
-                && (register.getFirstName().length() >= 2 && register.getFirstName().length() <= 16)
-                && (register.getLastName().length() >= 2 && register.getLastName().length() <= 16)
-                && (matcher);
+    private boolean hasLength(String value, int min, int max) {
+        return value != null && value.length() >= min && value.length() <= max;
     }
 
 }
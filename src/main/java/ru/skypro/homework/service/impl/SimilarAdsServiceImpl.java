@@ -0,0 +1,112 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.entity.Ad;
+import ru.skypro.homework.service.SimilarAdsService;
+import ru.skypro.homework.util.MinHashLshIndex;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Сервис для поиска похожих объявлений по заголовку и описанию.
+ * <br><br> Индекс {@link MinHashLshIndex} обновляется при создании, изменении и удалении объявлений,
+ * а при запуске приложения строится заново по базе данных: сигнатуры каждой пачки объявлений вычисляются параллельно в пуле ForkJoin.
+ */
+@Slf4j
+@Service
+public class SimilarAdsServiceImpl implements SimilarAdsService {
+
+    private static final int REBUILD_CHUNK_SIZE = 10_000;
+
+    private final MinHashLshIndex index;
+    private final AdScanner adScanner;
+    private final ForkJoinPool rebuildPool;
+    private final int maxCandidates;
+    private final Set<Integer> removedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+
+    public SimilarAdsServiceImpl(final AdScanner adScanner,
+                                 @Value("${ads.similar.num-hashes}") int numHashes,
+                                 @Value("${ads.similar.bands}") int bands,
+                                 @Value("${ads.similar.max-text-length}") int maxTextLength,
+                                 @Value("${ads.similar.max-candidates}") int maxCandidates,
+                                 @Value("${ads.similar.rebuild-parallelism}") int rebuildParallelism) {
+        this.index = new MinHashLshIndex(numHashes, bands, maxTextLength);
+        this.adScanner = adScanner;
+        this.rebuildPool = new ForkJoinPool(rebuildParallelism);
+        this.maxCandidates = maxCandidates;
+    }
+
+    @Override
+    public void index(Integer adId, String title, String description) {
+        index.put(adId, index.signature(text(title, description)));
+    }
+
+    @Override
+    public void remove(Integer adId) {
+        index.remove(adId);
+        if (rebuilding) {
+            removedDuringRebuild.add(adId);
+        }
+    }
+
+    /**
+     * Метод, который ищет объявления, похожие на переданное.
+     * <br> Если объявления еще нет в индексе, его сигнатура вычисляется по переданным заголовку и описанию.
+     * @param adId        идентификатор объявления
+     * @param title       заголовок объявления
+     * @param description описание объявления
+     * @param limit       максимальное количество результатов
+     * @return идентификаторы похожих объявлений в порядке убывания сходства
+     */
+    @Override
+    public List<Integer> findSimilarIds(Integer adId, String title, String description, int limit) {
+        int[] signature = index.getSignature(adId);
+        if (signature == null) {
+            signature = index.signature(text(title, description));
+        }
+        return index.query(signature, adId, limit, maxCandidates);
+    }
+
+    /**
+     * Метод, который при запуске приложения строит индекс по всем объявлениям из базы данных.
+     * <br> Объявления, измененные или удаленные во время построения, не перезаписываются устаревшими данными.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            long total = adScanner.scan(REBUILD_CHUNK_SIZE, chunk -> rebuildPool.submit(() -> chunk
+                    .parallelStream()
+                    .forEach(ad -> {
+                        int[] signature = index.signature(text(ad.getTitle(), ad.getDescription()));
+                        if (!removedDuringRebuild.contains(ad.getPk())) {
+                            index.putIfAbsent(ad.getPk(), signature);
+                        }
+                    })).join());
+            log.info("Similar ads index built for {} ads in {} ms", total, System.currentTimeMillis() - startedAt);
+        } finally {
+            rebuilding = false;
+            removedDuringRebuild.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildPool.shutdownNow();
+    }
+
+    private String text(String title, String description) {
+        return (description == null) ? title : title + " " + description;
+    }
+
+}
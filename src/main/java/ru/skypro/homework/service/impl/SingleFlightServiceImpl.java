@@ -0,0 +1,143 @@
+package ru.skypro.homework.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.dto.SingleFlightStatsDto;
+import ru.skypro.homework.exception.SingleFlightTimeoutException;
+import ru.skypro.homework.service.SingleFlightService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сервис, который объединяет одновременные одинаковые запросы на чтение (single-flight).
+ * <br><br> Запросы различаются парой (операция, аргумент). Первый запрос становится ведущим: он кладет свой
+ * {@link CompletableFuture} в {@link ConcurrentHashMap} и выполняет чтение в своем потоке. Запросы с той же парой,
+ * пришедшие до окончания чтения, не обращаются к базе данных или диску, а ждут результат ведущего
+ * не дольше single-flight.timeout. После чтения будущий результат удаляется из таблицы, поэтому следующие запросы
+ * читают данные заново: сервис не кеширует результаты, а только объединяет одновременные чтения.
+ * <br> Результат и исключение ведущего получают все ожидающие запросы, поэтому результат не должен изменяться
+ * вызывающим кодом. Ожидающий запрос, который прервался или не дождался результата, не отменяет общее чтение;
+ * ведущий всегда завершает его, даже при исключении.
+ */
+@Service
+public class SingleFlightServiceImpl implements SingleFlightService {
+
+    private final Map<String, Flights> operations = new ConcurrentHashMap<>();
+    private final long timeout;
+
+    public SingleFlightServiceImpl(@Value("${single-flight.timeout}") long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Метод, который выполняет чтение или присоединяется к уже выполняющемуся чтению с той же операцией и аргументом
+     * @param operation название операции
+     * @param argument  аргумент операции
+     * @param loader    чтение данных
+     * @return результат чтения
+     * @throws SingleFlightTimeoutException если результат ведущего запроса не получен за single-flight.timeout
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T, E extends Exception> T execute(String operation, Object argument, Loader<T, E> loader) throws E {
+        Flights flights = operations.computeIfAbsent(operation, key -> new Flights());
+        flights.requests.increment();
+        if (argument == null) {
+            flights.executions.increment();
+            return loader.load();
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = flights.inFlight.putIfAbsent(argument, future);
+        if (inFlight != null) {
+            flights.coalesced.increment();
+            return (T) await(operation, flights, inFlight);
+        }
+
+        flights.executions.increment();
+        try {
+            T value = loader.load();
+            flights.inFlight.remove(argument, future);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            flights.failed.increment();
+            flights.inFlight.remove(argument, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Метод, который возвращает статистику объединения запросов по операциям
+     */
+    @Override
+    public List<SingleFlightStatsDto> getStats() {
+        List<SingleFlightStatsDto> stats = new ArrayList<>();
+        operations.forEach((operation, flights) -> {
+            SingleFlightStatsDto dto = new SingleFlightStatsDto();
+            long requests = flights.requests.sum();
+            long coalesced = flights.coalesced.sum();
+            dto.setOperation(operation);
+            dto.setRequests(requests);
+            dto.setExecutions(flights.executions.sum());
+            dto.setCoalesced(coalesced);
+            dto.setTimedOut(flights.timedOut.sum());
+            dto.setFailed(flights.failed.sum());
+            dto.setInFlight(flights.inFlight.size());
+            dto.setCoalescingRatio(requests == 0 ? 0 : (double) coalesced / requests);
+            stats.add(dto);
+        });
+        return stats;
+    }
+
+    /**
+     * Приватный метод, который ждет результат ведущего запроса.
+     * <br> Исключение ведущего пробрасывается без обертки
+     */
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> Object await(String operation, Flights flights,
+                                               CompletableFuture<Object> inFlight) throws E {
+        try {
+            return inFlight.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            flights.timedOut.increment();
+            throw new SingleFlightTimeoutException(operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted while waiting for in-flight " + operation);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (E) cause;
+        }
+    }
+
+    /**
+     * Выполняющиеся чтения и счетчики одной операции
+     */
+    private static final class Flights {
+
+        private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+    }
+
+}
@@ -0,0 +1,154 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.service.TitleSuggestService;
+import ru.skypro.homework.util.SuggestTrie;
+import ru.skypro.homework.util.TitleWords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сервис автодополнения поисковых запросов по словам из заголовков объявлений.
+ * <br><br> Слова хранятся в {@link SuggestTrie} с весом, равным количеству объявлений с этим словом.
+ * Для каждого объявления запоминается набор его слов, чтобы при изменении заголовка или удалении
+ * объявления уменьшить веса только исчезнувших слов.
+ * <br> Расход памяти ограничивается настройками ads.suggest.max-words и ads.suggest.max-word-length.
+ */
+@Slf4j
+@Service
+public class TitleSuggestServiceImpl implements TitleSuggestService {
+
+    private static final int REBUILD_CHUNK_SIZE = 10_000;
+    private static final String[] NO_WORDS = new String[0];
+
+    private final SuggestTrie trie;
+    private final AdScanner adScanner;
+    private final ConcurrentHashMap<Integer, String[]> wordsByAd = new ConcurrentHashMap<>();
+    private final Set<Integer> removedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final int maxWordLength;
+    private final int maxEdits;
+    private final int maxLimit;
+    private volatile boolean rebuilding;
+
+    public TitleSuggestServiceImpl(final AdScanner adScanner,
+                                   @Value("${ads.suggest.max-words}") int maxWords,
+                                   @Value("${ads.suggest.max-word-length}") int maxWordLength,
+                                   @Value("${ads.suggest.max-edits}") int maxEdits,
+                                   @Value("${ads.suggest.max-limit}") int maxLimit) {
+        this.trie = new SuggestTrie(maxWords);
+        this.adScanner = adScanner;
+        this.maxWordLength = maxWordLength;
+        this.maxEdits = maxEdits;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Метод, который добавляет или обновляет слова заголовка объявления
+     * @param adId  идентификатор объявления
+     * @param title заголовок объявления
+     */
+    @Override
+    public void index(Integer adId, String title) {
+        String[] words = words(title);
+        wordsByAd.compute(adId, (id, previous) -> replace(previous, words));
+    }
+
+    @Override
+    public void remove(Integer adId) {
+        wordsByAd.computeIfPresent(adId, (id, previous) -> {
+            replace(previous, NO_WORDS);
+            return null;
+        });
+        if (rebuilding) {
+            removedDuringRebuild.add(adId);
+        }
+    }
+
+    /**
+     * Метод, который дополняет последнее слово запроса.
+     * <br> Количество допустимых опечаток зависит от длины слова: до 2 символов – 0, до 5 – 1, дальше – 2,
+     * но не больше ads.suggest.max-edits.
+     * @param query поисковый запрос
+     * @param limit максимальное количество подсказок
+     * @return запросы, в которых последнее слово заменено найденными словами
+     */
+    @Override
+    public List<String> suggest(String query, int limit) {
+        String[] words = Arrays.stream(TitleWords.WORD_SEPARATOR.split(query.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+        if (words.length == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String prefix = words[words.length - 1];
+        if (prefix.length() > maxWordLength) {
+            prefix = prefix.substring(0, maxWordLength);
+        }
+        int edits = Math.min(maxEdits, (prefix.length() <= 2) ? 0 : (prefix.length() <= 5) ? 1 : 2);
+        List<String> completions = trie.complete(prefix, edits, Math.min(limit, maxLimit));
+        if (words.length == 1) {
+            return completions;
+        }
+        String head = String.join(" ", Arrays.copyOf(words, words.length - 1)) + " ";
+        List<String> suggestions = new ArrayList<>(completions.size());
+        for (String completion : completions) {
+            suggestions.add(head + completion);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Метод, который при запуске приложения строит индекс по заголовкам всех объявлений из базы данных.
+     * <br> Объявления, измененные или удаленные во время построения, не перезаписываются устаревшими данными.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            long total = adScanner.scan(REBUILD_CHUNK_SIZE, chunk -> chunk.forEach(ad -> {
+                if (!removedDuringRebuild.contains(ad.getPk())) {
+                    String[] words = words(ad.getTitle());
+                    wordsByAd.computeIfAbsent(ad.getPk(), id -> replace(null, words));
+                }
+            }));
+            log.info("Title suggest index built for {} ads and {} words in {} ms",
+                    total, trie.size(), System.currentTimeMillis() - startedAt);
+        } finally {
+            rebuilding = false;
+            removedDuringRebuild.clear();
+        }
+    }
+
+    /**
+     * Приватный метод, который уменьшает веса исчезнувших слов и увеличивает веса новых
+     * @return слова объявления, которые есть в дереве
+     */
+    private String[] replace(String[] previous, String[] current) {
+        Set<String> removed = new LinkedHashSet<>((previous != null) ? Arrays.asList(previous) : List.of());
+        List<String> indexed = new ArrayList<>(current.length);
+        for (String word : current) {
+            if (removed.remove(word) || trie.increment(word)) {
+                indexed.add(word);
+            }
+        }
+        removed.forEach(trie::decrement);
+        return indexed.toArray(NO_WORDS);
+    }
+
+    private String[] words(String title) {
+        return TitleWords.of(title, maxWordLength).toArray(NO_WORDS);
+    }
+
+}
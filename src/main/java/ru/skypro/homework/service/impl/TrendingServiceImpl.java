@@ -0,0 +1,206 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.homework.service.TrendingService;
+import ru.skypro.homework.util.TopKScoreHeap;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Сервис для ранжирования популярных объявлений по просмотрам и новым комментариям с экспоненциальным затуханием.
+ * <br><br> Вместо периодического уменьшения всех счетов каждое событие прибавляет вес, умноженный на exp((t - t0) / tau):
+ * чем позже событие, тем больше его вклад, а порядок объявлений совпадает с порядком затухающих счетов.
+ * Когда множитель становится слишком большим, все счета один раз пересчитываются относительно новой точки отсчета t0.
+ * <br> Запросы не берут общую блокировку: вес события прибавляется к счетчику {@link DoubleAdder} объявления,
+ * а накопленные веса раз в drain-interval переносятся в кучу одним потоком. Время события при этом округляется
+ * до момента переноса, что при drain-interval много меньше half-life не меняет порядок объявлений.
+ * <br> В памяти хранятся только capacity объявлений с наибольшими счетами, счета периодически сохраняются в таблицу ad_trending
+ * и восстанавливаются из нее при запуске приложения. До восстановления сохранение не выполняется,
+ * чтобы пустая куча не затерла последнее сохранение.
+ */
+@Slf4j
+@Service
+public class TrendingServiceImpl implements TrendingService {
+
+    private static final String SELECT_CHECKPOINT_SQL = "SELECT ad_pk, score, checkpoint_at FROM ad_trending";
+    private static final String DELETE_CHECKPOINT_SQL = "DELETE FROM ad_trending";
+    private static final String INSERT_CHECKPOINT_SQL = "INSERT INTO ad_trending (ad_pk, score, checkpoint_at) VALUES (?, ?, ?)";
+    private static final double MAX_EXPONENT = 50.0;
+
+    private final TopKScoreHeap scores;
+    private final Map<Integer, DoubleAdder> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double decayRate;
+    private final double viewWeight;
+    private final double commentWeight;
+    private final long rankingRefreshInterval;
+    private long landmark = System.currentTimeMillis();
+    private volatile int[] ranking = new int[0];
+    private volatile long rankingBuiltAt;
+    private volatile boolean restored;
+
+    public TrendingServiceImpl(final JdbcTemplate jdbcTemplate,
+                               final PlatformTransactionManager transactionManager,
+                               @Value("${ads.trending.capacity}") int capacity,
+                               @Value("${ads.trending.half-life}") long halfLife,
+                               @Value("${ads.trending.view-weight}") double viewWeight,
+                               @Value("${ads.trending.comment-weight}") double commentWeight,
+                               @Value("${ads.trending.refresh-interval}") long rankingRefreshInterval) {
+        this.scores = new TopKScoreHeap(capacity);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.decayRate = Math.log(2) / halfLife;
+        this.viewWeight = viewWeight;
+        this.commentWeight = commentWeight;
+        this.rankingRefreshInterval = rankingRefreshInterval;
+    }
+
+    @Override
+    public void registerView(Integer adId) {
+        register(adId, viewWeight);
+    }
+
+    @Override
+    public void registerComment(Integer adId) {
+        register(adId, commentWeight);
+    }
+
+    @Override
+    public synchronized void remove(Integer adId) {
+        pending.remove(adId);
+        scores.remove(adId);
+    }
+
+    /**
+     * Метод, который переносит накопленные веса событий в кучу с учетом времени переноса
+     */
+    @Scheduled(fixedDelayString = "${ads.trending.drain-interval}")
+    public synchronized void drain() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        double exponent = (now - landmark) * decayRate;
+        if (exponent > MAX_EXPONENT) {
+            scores.rescale(Math.exp(-exponent));
+            landmark = now;
+            exponent = 0.0;
+        }
+        double factor = Math.exp(exponent);
+        for (Map.Entry<Integer, DoubleAdder> entry : pending.entrySet()) {
+            DoubleAdder weight = entry.getValue();
+            double delta = weight.sumThenReset();
+            if (delta == 0.0) {
+                pending.remove(entry.getKey(), weight);
+                delta = weight.sumThenReset();
+            }
+            if (delta > 0.0) {
+                scores.add(entry.getKey(), delta * factor);
+            }
+        }
+    }
+
+    /**
+     * Метод, который возвращает страницу идентификаторов самых популярных объявлений.
+     * <br> Рейтинг пересчитывается не чаще одного раза в refresh-interval, в остальное время страница берется из готового массива.
+     * @param page номер страницы, начиная с 0
+     * @param size размер страницы
+     */
+    @Override
+    public List<Integer> getTrendingIds(int page, int size) {
+        int[] currentRanking = ranking;
+        long now = System.currentTimeMillis();
+        if (now - rankingBuiltAt > rankingRefreshInterval) {
+            synchronized (this) {
+                currentRanking = scores.sortedKeys();
+            }
+            ranking = currentRanking;
+            rankingBuiltAt = now;
+        }
+
+        int from = page * size;
+        if (page < 0 || size <= 0 || from >= currentRanking.length) {
+            return Collections.emptyList();
+        }
+        int to = Math.min(from + size, currentRanking.length);
+        List<Integer> ids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ids.add(currentRanking[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Метод, который сохраняет текущие счета в таблицу ad_trending, приводя их к моменту сохранения.
+     * <br> До восстановления счетов из последнего сохранения метод ничего не делает
+     */
+    @Scheduled(fixedDelayString = "${ads.trending.checkpoint-interval}")
+    public void checkpoint() {
+        if (!restored) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            drain();
+            double factor = Math.exp(-(now - landmark) * decayRate);
+            scores.forEach((adId, score) -> rows.add(new Object[]{adId, score * factor, now}));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_CHECKPOINT_SQL);
+                jdbcTemplate.batchUpdate(INSERT_CHECKPOINT_SQL, rows);
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to checkpoint trending scores", e);
+        }
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+
+    /**
+     * Метод, который при запуске приложения восстанавливает счета из последнего сохранения с учетом прошедшего времени
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        List<double[]> rows = jdbcTemplate.query(SELECT_CHECKPOINT_SQL, (rs, rowNum) -> new double[]{
+                rs.getInt("ad_pk"), rs.getDouble("score"), rs.getLong("checkpoint_at")
+        });
+        synchronized (this) {
+            rows.forEach(row -> scores.add((int) row[0], row[1] * Math.exp(((long) row[2] - landmark) * decayRate)));
+        }
+        restored = true;
+        log.info("Restored {} trending scores", rows.size());
+    }
+
+    /**
+     * Приватный метод, который прибавляет вес события к накопленному весу объявления без блокировки
+     */
+    private void register(Integer adId, double weight) {
+        DoubleAdder pendingWeight = pending.get(adId);
+        if (pendingWeight == null) {
+            pendingWeight = pending.computeIfAbsent(adId, id -> new DoubleAdder());
+        }
+        pendingWeight.add(weight);
+    }
+
+}
@@ -1,6 +1,7 @@
 package ru.skypro.homework.service.impl;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -9,29 +10,37 @@ import ru.skypro.homework.entity.User;
 import ru.skypro.homework.entity.UserPrincipal;
 import ru.skypro.homework.mapper.UserMapper;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.service.LoginAttemptService;
 
 /**
  * Сервис для получения данный текущего пользователя
  */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final LoginAttemptService loginAttemptService;
 
     public UserDetailsServiceImpl(final UserRepository userRepository,
-                                  final UserMapper userMapper) {
+                                  final UserMapper userMapper,
+                                  final LoginAttemptService loginAttemptService) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
+        this.loginAttemptService = loginAttemptService;
     }
 
     /**
      * Метод, который получает текущего пользователя из базы данных
+     * <br> Если email точно не зарегистрирован, база данных не запрашивается, см. {@link LoginAttemptService#mayExist}
      * @param username
      * @return объект с данными аутентифицированного пользователя
      * @throws UsernameNotFoundException
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (!loginAttemptService.mayExist(username)) {
+            throw new UsernameNotFoundException(username);
+        }
         User user = userRepository.findByEmail(username);
         UserPrincipalDto userDto = userMapper.toUserPrincipalDto(user);
         if (userDto == null) {
@@ -40,4 +49,21 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return new UserPrincipal(userDto);
     }
 
+    /**
+     * Метод, который сохраняет пароль, перехешированный при входе с новой стоимостью BCrypt
+     * @param user        аутентифицированный пользователь
+     * @param newPassword новый хеш пароля
+     * @return пользователь с новым хешем пароля
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User found = userRepository.findByEmail(user.getUsername());
+        if (found == null) {
+            return user;
+        }
+        found.setPassword(newPassword);
+        userRepository.save(found);
+        return new UserPrincipal(userMapper.toUserPrincipalDto(found));
+    }
+
 }
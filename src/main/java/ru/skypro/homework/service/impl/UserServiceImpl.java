@@ -9,8 +9,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriComponentsBuilder;
+import ru.skypro.homework.dto.AuthorDto;
 import ru.skypro.homework.dto.UpdateUserDto;
 import ru.skypro.homework.dto.UserDto;
+import ru.skypro.homework.dto.UsersDto;
 import ru.skypro.homework.entity.User;
 import ru.skypro.homework.exception.UserAvatarProcessingException;
 import ru.skypro.homework.mapper.UserMapper;
@@ -21,8 +23,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с пользователями
@@ -34,14 +43,17 @@ public class UserServiceImpl implements UserService {
     private final UserMapper mapper;
     private final PasswordEncoder encoder;
     private final String fullAvatarPath;
+    private final int batchMaxSize;
 
     public UserServiceImpl(final UserRepository repository,
                            final UserMapper mapper,
                            final PasswordEncoder encoder,
-                           @Value("${path.to.avatars.folder}") String pathToAvatarsDir) {
+                           @Value("${path.to.avatars.folder}") String pathToAvatarsDir,
+                           @Value("${users.batch.max-size}") int batchMaxSize) {
         this.repository = repository;
         this.mapper = mapper;
         this.encoder = encoder;
+        this.batchMaxSize = batchMaxSize;
         this.fullAvatarPath = UriComponentsBuilder.newInstance()
                 .path(pathToAvatarsDir + "/")
                 .build()
@@ -63,6 +75,45 @@ public class UserServiceImpl implements UserService {
         );
     }
 
+    /**
+     * Метод, который выводит карточки авторов по списку идентификаторов одним запросом к базе данных.
+     * <br><br> Карточка содержит только идентификатор, имя, фамилию и аватар: email, телефон и роль других
+     * пользователей не раскрываются.
+     * <br> Пользователи возвращаются в порядке запрошенных идентификаторов,
+     * на месте ненайденного пользователя стоит null, а его идентификатор попадает в notFound.
+     * @param ids идентификаторы пользователей
+     * @return UsersDto – карточки авторов или null, если идентификаторов больше допустимого
+     */
+    @Override
+    public UsersDto getUsersByIds(final List<Integer> ids) {
+        if (ids.size() > batchMaxSize) {
+            return null;
+        }
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        Map<Integer, AuthorDto> foundUsers = repository
+                .findAllById(uniqueIds)
+                .stream()
+                .map(mapper::toAuthorDto)
+                .collect(Collectors.toMap(AuthorDto::getId, Function.identity()));
+
+        List<AuthorDto> results = new ArrayList<>(ids.size());
+        List<Integer> notFound = new ArrayList<>();
+        ids.forEach(id -> {
+            AuthorDto user = foundUsers.get(id);
+            results.add(user);
+            if (user == null) {
+                notFound.add(id);
+            }
+        });
+
+        UsersDto usersDto = new UsersDto();
+        usersDto.setCount(results.size() - notFound.size());
+        usersDto.setResults(results);
+        usersDto.setNotFound(notFound);
+        return usersDto;
+    }
+
     /**
      * Метод, который обновляет пароль от кабинета пользователя.
      * <br> Используются методы сервиса {@link UserServiceImpl#checkCurrentPassword}, {@link UserServiceImpl#setNewPassword}
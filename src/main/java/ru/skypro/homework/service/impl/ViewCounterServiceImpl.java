@@ -0,0 +1,172 @@
+package ru.skypro.homework.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.service.ViewCounterService;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Сервис для подсчета просмотров объявлений.
+ * <br><br> Просмотры копятся в памяти в счетчиках {@link LongAdder}, которые не блокируют потоки при одновременном увеличении,
+ * и периодически записываются в базу данных одним пакетным запросом.
+ * <br> Счетчики объявлений без новых просмотров удаляются при следующей записи, а при превышении лимита
+ * запись запускается досрочно в потоке viewFlushExecutor и освобождает все счетчики, так что количество счетчиков
+ * в памяти ограничено. Запрос, превысивший лимит, не ждет записи в базу данных.
+ * <br> Удаляемый счетчик помечается как выведенный перед последним чтением. Поток, который увеличил выведенный счетчик,
+ * сам забирает из него оставшиеся просмотры и переносит их в новый счетчик, поэтому просмотр, попавший в счетчик
+ * после его удаления из таблицы, не теряется.
+ */
+@Slf4j
+@Service
+public class ViewCounterServiceImpl implements ViewCounterService {
+
+    private static final String UPDATE_VIEWS_SQL = "UPDATE ads SET views = views + ? WHERE pk = ?";
+
+    private final ConcurrentHashMap<Integer, ViewCounter> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolTaskExecutor flushExecutor;
+    private final int maxTrackedAds;
+
+    public ViewCounterServiceImpl(final JdbcTemplate jdbcTemplate,
+                                  @Qualifier("viewFlushExecutor") final ThreadPoolTaskExecutor flushExecutor,
+                                  @Value("${ads.views.max-tracked-ads}") int maxTrackedAds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushExecutor = flushExecutor;
+        this.maxTrackedAds = maxTrackedAds;
+    }
+
+    /**
+     * Метод, который увеличивает счетчик просмотров объявления в памяти
+     * @param adId идентификатор объявления
+     */
+    @Override
+    public void registerView(Integer adId) {
+        addViews(adId, 1);
+    }
+
+    /**
+     * Метод, который возвращает количество просмотров объявления, еще не записанных в базу данных
+     * @param adId идентификатор объявления
+     */
+    @Override
+    public long getPendingViews(Integer adId) {
+        ViewCounter counter = counters.get(adId);
+        return (counter != null) ? counter.views.sum() : 0L;
+    }
+
+    /**
+     * Метод, который записывает накопленные просмотры в базу данных.
+     * <br> Вызывается по расписанию и при остановке приложения.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${ads.views.flush-interval}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushCounters(counters.size() >= maxTrackedAds);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Приватный метод, который добавляет просмотры в счетчик объявления.
+     * <br> Если счетчик уже выведен, просмотры, которые запись могла не забрать, переносятся в новый счетчик
+     */
+    private void addViews(Integer adId, long views) {
+        while (views != 0) {
+            ViewCounter counter = counters.get(adId);
+            if (counter == null) {
+                if (counters.size() >= maxTrackedAds) {
+                    requestFlush();
+                }
+                counter = counters.computeIfAbsent(adId, id -> new ViewCounter());
+            }
+            counter.views.add(views);
+            views = counter.retired ? counter.views.sumThenReset() : 0;
+        }
+    }
+
+    /**
+     * Приватный метод, который запускает досрочную запись в отдельном потоке, если она еще не запущена
+     */
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flushExecutor.execute(() -> {
+                try {
+                    flush();
+                } finally {
+                    flushRequested.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            flushRequested.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Приватный метод, который забирает накопленные значения счетчиков и записывает их одним пакетом.
+     * <br> Если запись не удалась, значения возвращаются в счетчики до следующей попытки.
+     * @param evictAll удалить все счетчики, а не только счетчики без новых просмотров
+     */
+    private void flushCounters(boolean evictAll) {
+        List<Object[]> deltas = new ArrayList<>();
+        for (Map.Entry<Integer, ViewCounter> entry : counters.entrySet()) {
+            ViewCounter counter = entry.getValue();
+            long delta = counter.views.sumThenReset();
+            if (evictAll || delta == 0) {
+                counters.remove(entry.getKey(), counter);
+                counter.retired = true;
+                delta += counter.views.sumThenReset();
+            }
+            if (delta > 0) {
+                deltas.add(new Object[]{delta, entry.getKey()});
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_VIEWS_SQL, deltas);
+        } catch (DataAccessException e) {
+            log.warn("Failed to flush views of {} ads, will retry", deltas.size(), e);
+            deltas.forEach(delta -> addViews((Integer) delta[1], (Long) delta[0]));
+        }
+    }
+
+    /**
+     * Счетчик просмотров объявления и признак его удаления из таблицы счетчиков
+     */
+    private static final class ViewCounter {
+
+        private final LongAdder views = new LongAdder();
+        private volatile boolean retired;
+    }
+
+}
@@ -0,0 +1,379 @@
+package ru.skypro.homework.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Колоночный индекс объявлений для фильтрации по цене, автору и наличию изображения.
+ * <br><br> Слот объявления равен его идентификатору, поэтому поля хранятся массивами примитивов без отображения
+ * идентификаторов в слоты: цены – массивом int, множества объявлений – битовыми множествами {@link BitSet}
+ * (все объявления, объявления с изображением, объявления каждого автора).
+ * <br> Для сортировки и диапазонов цен поддерживаются отсортированные значения long (цена << 32 | идентификатор),
+ * разбитые на упорядоченные блоки не длиннее {@link #MAX_BLOCK_SIZE}. Диапазон цен находится двоичным поиском
+ * по блокам и внутри блока, а изменение цены сдвигает элементы только одного блока, а не всего массива.
+ * Заполненный блок делится пополам, пустой блок удаляется.
+ * <br> Фильтры по нескольким условиям сводятся к пересечению битовых множеств. Класс потокобезопасен.
+ */
+public class AdColumnIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_BLOCK_SIZE = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet live = new BitSet();
+    private final BitSet withPrice = new BitSet();
+    private final BitSet withImage = new BitSet();
+    private final Map<Integer, BitSet> adsByAuthor = new HashMap<>();
+    private int[] prices = new int[INITIAL_CAPACITY];
+    private int[] authors = new int[INITIAL_CAPACITY];
+    private final List<PriceBlock> byPrice = new ArrayList<>();
+
+    /**
+     * Метод, который добавляет объявление в индекс или обновляет его поля
+     * @param adId     идентификатор объявления
+     * @param price    цена или null
+     * @param authorId идентификатор автора
+     * @param hasImage есть ли у объявления изображение
+     */
+    public void put(int adId, Integer price, int authorId, boolean hasImage) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(adId);
+            ensureCapacity(adId);
+            live.set(adId);
+            authors[adId] = authorId;
+            adsByAuthor.computeIfAbsent(authorId, id -> new BitSet()).set(adId);
+            withImage.set(adId, hasImage);
+            if (price != null) {
+                prices[adId] = price;
+                withPrice.set(adId);
+                insertByPrice(key(price, adId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод, который добавляет объявление, только если его еще нет в индексе
+     * @return true, если объявление добавлено
+     */
+    public boolean putIfAbsent(int adId, Integer price, int authorId, boolean hasImage) {
+        lock.writeLock().lock();
+        try {
+            if (live.get(adId)) {
+                return false;
+            }
+            put(adId, price, authorId, hasImage);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int adId) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(adId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Метод, который выбирает страницу объявлений, удовлетворяющих всем заданным условиям.
+     * <br> Условия со значением null не проверяются.
+     * @param minPrice  минимальная цена включительно
+     * @param maxPrice  максимальная цена включительно
+     * @param authorId  идентификатор автора
+     * @param hasImage  наличие изображения
+     * @param sort      порядок сортировки
+     * @param offset    количество пропускаемых объявлений
+     * @param limit     размер страницы
+     * @return количество найденных объявлений и идентификаторы объявлений страницы
+     */
+    public Page filter(Integer minPrice, Integer maxPrice, Integer authorId, Boolean hasImage,
+                       Sort sort, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = (BitSet) live.clone();
+            if (authorId != null) {
+                BitSet authorAds = adsByAuthor.get(authorId);
+                if (authorAds == null) {
+                    return new Page(0, new int[0]);
+                }
+                candidates.and(authorAds);
+            }
+            if (Boolean.TRUE.equals(hasImage)) {
+                candidates.and(withImage);
+            } else if (Boolean.FALSE.equals(hasImage)) {
+                candidates.andNot(withImage);
+            }
+
+            boolean priceRange = minPrice != null || maxPrice != null;
+            if (!priceRange && sort == Sort.ID) {
+                return pageById(candidates, offset, limit);
+            }
+            long from = (minPrice != null) ? key(minPrice, 0) : Long.MIN_VALUE;
+            long to = (maxPrice != null && maxPrice < Integer.MAX_VALUE) ? key(maxPrice + 1, 0) : Long.MAX_VALUE;
+            if (sort == Sort.ID) {
+                BitSet inRange = new BitSet(candidates.length());
+                forEachByPrice(from, to, false, inRange::set);
+                candidates.and(inRange);
+                return pageById(candidates, offset, limit);
+            }
+            if (!priceRange) {
+                candidates.and(withPrice);
+            }
+            PageCollector collector = new PageCollector(candidates, offset, limit);
+            forEachByPrice(from, to, sort == Sort.PRICE_DESC, collector);
+            return new Page(collector.total, Arrays.copyOf(collector.ids, collector.found));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Page pageById(BitSet candidates, int offset, int limit) {
+        int total = candidates.cardinality();
+        int[] ids = new int[Math.max(0, Math.min(limit, total - offset))];
+        int skipped = 0;
+        int found = 0;
+        for (int id = candidates.nextSetBit(0); id >= 0 && found < ids.length; id = candidates.nextSetBit(id + 1)) {
+            if (skipped++ >= offset) {
+                ids[found++] = id;
+            }
+        }
+        return new Page(total, ids);
+    }
+
+    /**
+     * Метод, который передает идентификаторы объявлений со значениями в диапазоне [from, to) в порядке цены
+     */
+    private void forEachByPrice(long from, long to, boolean descending, IntConsumer action) {
+        if (descending) {
+            int b = findBlock(to);
+            int i;
+            if (b == byPrice.size()) {
+                b--;
+                i = (b >= 0) ? byPrice.get(b).size : 0;
+            } else {
+                i = byPrice.get(b).lowerBound(to);
+            }
+            for (; b >= 0; b--) {
+                PriceBlock block = byPrice.get(b);
+                for (; i > 0; i--) {
+                    long key = block.keys[i - 1];
+                    if (key < from) {
+                        return;
+                    }
+                    action.accept(idOf(key));
+                }
+                if (b > 0) {
+                    i = byPrice.get(b - 1).size;
+                }
+            }
+        } else {
+            int b = findBlock(from);
+            int i = (b < byPrice.size()) ? byPrice.get(b).lowerBound(from) : 0;
+            for (; b < byPrice.size(); b++, i = 0) {
+                PriceBlock block = byPrice.get(b);
+                for (; i < block.size; i++) {
+                    long key = block.keys[i];
+                    if (key >= to) {
+                        return;
+                    }
+                    action.accept(idOf(key));
+                }
+            }
+        }
+    }
+
+    private void removeSlot(int adId) {
+        if (!live.get(adId)) {
+            return;
+        }
+        live.clear(adId);
+        withImage.clear(adId);
+        BitSet authorAds = adsByAuthor.get(authors[adId]);
+        if (authorAds != null) {
+            authorAds.clear(adId);
+            if (authorAds.isEmpty()) {
+                adsByAuthor.remove(authors[adId]);
+            }
+        }
+        if (withPrice.get(adId)) {
+            withPrice.clear(adId);
+            long key = key(prices[adId], adId);
+            int b = findBlock(key);
+            if (b < byPrice.size() && byPrice.get(b).remove(key) && byPrice.get(b).size == 0) {
+                byPrice.remove(b);
+            }
+        }
+    }
+
+    private void insertByPrice(long key) {
+        int b = findBlock(key);
+        if (b == byPrice.size()) {
+            if (b == 0) {
+                byPrice.add(new PriceBlock());
+            } else {
+                b--;
+            }
+        }
+        PriceBlock block = byPrice.get(b);
+        block.insert(key);
+        if (block.size == MAX_BLOCK_SIZE) {
+            byPrice.add(b + 1, block.split());
+        }
+    }
+
+    /**
+     * Метод, который находит первый блок, последнее значение которого не меньше key
+     * @return индекс блока или количество блоков, если все значения меньше key
+     */
+    private int findBlock(long key) {
+        int low = 0;
+        int high = byPrice.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (byPrice.get(mid).last() < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int adId) {
+        if (adId >= prices.length) {
+            int capacity = Math.max(adId + 1, prices.length * 2);
+            prices = Arrays.copyOf(prices, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+        }
+    }
+
+    private static long key(int price, int adId) {
+        return ((long) price << 32) | (adId & 0xFFFFFFFFL);
+    }
+
+    private static int idOf(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Отсортированный блок значений (цена << 32 | идентификатор)
+     */
+    private static final class PriceBlock {
+
+        private final long[] keys = new long[MAX_BLOCK_SIZE];
+        private int size;
+
+        private long last() {
+            return keys[size - 1];
+        }
+
+        private int lowerBound(long key) {
+            int i = Arrays.binarySearch(keys, 0, size, key);
+            return (i >= 0) ? i : -i - 1;
+        }
+
+        private void insert(long key) {
+            int i = lowerBound(key);
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            keys[i] = key;
+            size++;
+        }
+
+        private boolean remove(long key) {
+            int i = Arrays.binarySearch(keys, 0, size, key);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Метод, который переносит вторую половину значений в новый блок
+         * @return новый блок
+         */
+        private PriceBlock split() {
+            PriceBlock tail = new PriceBlock();
+            int half = size / 2;
+            tail.size = size - half;
+            System.arraycopy(keys, half, tail.keys, 0, tail.size);
+            size = half;
+            return tail;
+        }
+    }
+
+    /**
+     * Сборщик страницы кандидатов в порядке цены
+     */
+    private static final class PageCollector implements IntConsumer {
+
+        private final BitSet candidates;
+        private final int offset;
+        private final int[] ids;
+        private int total;
+        private int found;
+
+        private PageCollector(BitSet candidates, int offset, int limit) {
+            this.candidates = candidates;
+            this.offset = offset;
+            this.ids = new int[Math.max(0, limit)];
+        }
+
+        @Override
+        public void accept(int id) {
+            if (candidates.get(id)) {
+                if (total >= offset && found < ids.length) {
+                    ids[found++] = id;
+                }
+                total++;
+            }
+        }
+    }
+
+    public enum Sort {
+        ID, PRICE_ASC, PRICE_DESC
+    }
+
+    public static final class Page {
+
+        private final int total;
+        private final int[] ids;
+
+        private Page(int total, int[] ids) {
+            this.total = total;
+            this.ids = ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int[] getIds() {
+            return ids;
+        }
+    }
+
+}
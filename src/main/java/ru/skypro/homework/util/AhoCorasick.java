@@ -0,0 +1,164 @@
+package ru.skypro.homework.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Автомат Ахо – Корасик для поиска всех вхождений множества слов за один проход по тексту.
+ * <br><br> После построения автомат неизменяем, поэтому один экземпляр можно использовать из любых потоков,
+ * а новый словарь подключается заменой ссылки на автомат.
+ * <br> Переходы хранятся в сжатом построчном виде: переходы состояния s лежат в массивах edgeChars и edgeTargets
+ * с индекса edgeStart[s] по edgeStart[s + 1], отсортированные по символу, и ищутся двоичным поиском.
+ * Для каждого состояния хранятся ссылка неудачи, номер слова, которое в нем заканчивается,
+ * и ссылка на ближайшее по цепочке неудач состояние, в котором заканчивается слово.
+ */
+public class AhoCorasick {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] fail;
+    private final int[] output;
+    private final int[] outputLink;
+    private final int[] patternLengths;
+
+    /**
+     * @param patterns слова словаря; номер слова в результатах поиска равен его индексу в списке
+     */
+    public AhoCorasick(List<String> patterns) {
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(NONE);
+        patternLengths = new int[patterns.size()];
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            patternLengths[p] = pattern.length();
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = children.get(state).get(pattern.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.get(state).put(pattern.charAt(i), next);
+                    children.add(new TreeMap<>());
+                    outputs.add(NONE);
+                }
+                state = next;
+            }
+            if (!pattern.isEmpty() && outputs.get(state) == NONE) {
+                outputs.set(state, p);
+            }
+        }
+
+        int states = children.size();
+        edgeStart = new int[states + 1];
+        edgeChars = new char[states - 1];
+        edgeTargets = new int[states - 1];
+        output = new int[states];
+        int edge = 0;
+        for (int s = 0; s < states; s++) {
+            edgeStart[s] = edge;
+            output[s] = outputs.get(s);
+            for (var entry : children.get(s).entrySet()) {
+                edgeChars[edge] = entry.getKey();
+                edgeTargets[edge] = entry.getValue();
+                edge++;
+            }
+        }
+        edgeStart[states] = edge;
+
+        fail = new int[states];
+        outputLink = new int[states];
+        Arrays.fill(outputLink, NONE);
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            fail[edgeTargets[e]] = ROOT;
+            queue.add(edgeTargets[e]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                int child = edgeTargets[e];
+                int f = fail[state];
+                int target;
+                while ((target = transition(f, edgeChars[e])) == NONE && f != ROOT) {
+                    f = fail[f];
+                }
+                fail[child] = (target != NONE && target != child) ? target : ROOT;
+                outputLink[child] = (output[fail[child]] != NONE) ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Метод, который находит все вхождения слов словаря в текст
+     * @param text текст
+     * @return вхождения в порядке их окончания в тексте
+     */
+    public List<Match> findAll(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = transition(state, c)) == NONE && state != ROOT) {
+                state = fail[state];
+            }
+            state = (next != NONE) ? next : ROOT;
+            for (int s = (output[state] != NONE) ? state : outputLink[state]; s != NONE; s = outputLink[s]) {
+                int pattern = output[s];
+                matches.add(new Match(pattern, i + 1 - patternLengths[pattern], i + 1));
+            }
+        }
+        return matches;
+    }
+
+    public int stateCount() {
+        return output.length;
+    }
+
+    private int transition(int state, char c) {
+        int i = Arrays.binarySearch(edgeChars, edgeStart[state], edgeStart[state + 1], c);
+        return (i >= 0) ? edgeTargets[i] : NONE;
+    }
+
+    public static final class Match {
+
+        private final int pattern;
+        private final int start;
+        private final int end;
+
+        private Match(int pattern, int start, int end) {
+            this.pattern = pattern;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getPattern() {
+            return pattern;
+        }
+
+        /**
+         * Индекс первого символа вхождения
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * Индекс символа после вхождения
+         */
+        public int getEnd() {
+            return end;
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package ru.skypro.homework.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BK-дерево 64-битных хешей с расстоянием Хэмминга, к каждому хешу привязан набор значений.
+ * <br><br> Поиск хешей на расстоянии не больше d обходит только поддеревья, расстояние до которых
+ * отличается от расстояния до запроса не больше чем на d (неравенство треугольника).
+ * <br> Удаление значения оставляет узел на месте, пустые узлы пропускаются при поиске. Класс потокобезопасен.
+ */
+public class BkTree {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+
+    public void add(long hash, String value) {
+        lock.writeLock().lock();
+        try {
+            if (root == null) {
+                root = new Node(hash);
+                root.values.add(value);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (distance == 0) {
+                    node.values.add(value);
+                    return;
+                }
+                Node child = node.child(distance);
+                if (child == null) {
+                    Node added = new Node(hash);
+                    added.values.add(value);
+                    node.addChild(distance, added);
+                    return;
+                }
+                node = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long hash, String value) {
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            while (node != null) {
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (distance == 0) {
+                    node.values.remove(value);
+                    return;
+                }
+                node = node.child(distance);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод, который ищет любое значение, хеш которого находится на расстоянии не больше maxDistance от переданного
+     * @return найденное значение или null
+     */
+    public String findWithin(long hash, int maxDistance) {
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return null;
+            }
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (distance <= maxDistance && !node.values.isEmpty()) {
+                    return node.values.iterator().next();
+                }
+                for (int i = 0; i < node.childCount; i++) {
+                    if (Math.abs(node.childDistances[i] - distance) <= maxDistance) {
+                        stack.push(node.children[i]);
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class Node {
+        private final long hash;
+        private final Set<String> values = new HashSet<>(2);
+        private byte[] childDistances = new byte[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+
+        private Node(long hash) {
+            this.hash = hash;
+        }
+
+        private Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(int distance, Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                childDistances = Arrays.copyOf(childDistances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            childDistances[childCount] = (byte) distance;
+            children[childCount++] = child;
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package ru.skypro.homework.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума для строк: компактное множество без ложноотрицательных ответов.
+ * <br><br> Если {@link BloomFilter#mightContain} вернул false, строка точно не добавлялась,
+ * true означает, что строка, вероятно, добавлялась. Вероятность ложного true не превышает falsePositiveRate,
+ * пока количество строк не больше expectedInsertions, и растет при переполнении.
+ * <br> Биты хранятся в {@link AtomicLongArray}, поэтому добавление и проверку можно выполнять из любых потоков без блокировок.
+ * Номера битов строки вычисляются двойным хешированием из одного 64-битного хеша.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions ожидаемое количество строк
+     * @param falsePositiveRate  допустимая вероятность ложноположительного ответа
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) >>> 6));
+        this.bitCount = (long) words.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * Метод, который добавляет строку во множество
+     */
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+    }
+
+    /**
+     * Метод, который проверяет, могла ли строка быть добавлена во множество
+     * @return false, если строка точно не добавлялась
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Размер фильтра в битах
+     */
+    public long bitSize() {
+        return bitCount;
+    }
+
+    /**
+     * Приватный метод, который вычисляет 64-битный хеш FNV-1a с финальным перемешиванием
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -0,0 +1,100 @@
+package ru.skypro.homework.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограничитель частоты запросов по ключу на основе GCRA (generic cell rate algorithm).
+ * <br><br> GCRA эквивалентен корзине токенов со скоростью rate в секунду и емкостью burst, но состояние ключа –
+ * одно число: теоретическое время прихода следующего запроса (TAT). Запрос разрешается, если TAT не ушло вперед
+ * больше чем на burst интервалов, и сдвигает TAT на один интервал. Состояние меняется одним compareAndSet без блокировок.
+ * <br> Ключ, у которого TAT уже в прошлом, ничем не отличается от нового, поэтому такие ключи удаляются методом
+ * {@link GcraRateLimiter#sweep}. Если ключей больше maxKeys, новые ключи распределяются по {@link #OVERFLOW_SLOTS}
+ * счетчикам фиксированного массива хешем ключа со случайным для экземпляра зерном. Поэтому клиент, создающий
+ * много ключей, ограничивает только ключи со своими слотами, а не всех новых клиентов, и не может заранее
+ * подобрать ключи под слоты чужих.
+ */
+public class GcraRateLimiter {
+
+    private static final int OVERFLOW_SLOTS = 4096;
+
+    private final ConcurrentHashMap<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+    private final AtomicLongArray overflowArrivals = new AtomicLongArray(OVERFLOW_SLOTS);
+    private final int seed = ThreadLocalRandom.current().nextInt();
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+
+    /**
+     * @param rate    средняя разрешенная частота запросов в секунду
+     * @param burst   количество запросов, которые можно сделать подряд
+     * @param maxKeys максимальное количество отслеживаемых ключей
+     */
+    public GcraRateLimiter(double rate, int burst, int maxKeys) {
+        this.intervalNanos = (long) (1_000_000_000L / rate);
+        this.toleranceNanos = intervalNanos * burst;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Метод, который пытается засчитать запрос по ключу
+     * @param key ключ: пользователь или адрес клиента
+     * @param now текущее время {@link System#nanoTime()}
+     * @return 0, если запрос разрешен, иначе через сколько наносекунд запрос будет разрешен
+     */
+    public long tryAcquire(String key, long now) {
+        AtomicLong arrival = arrivals.get(key);
+        if (arrival == null) {
+            if (arrivals.size() >= maxKeys) {
+                return tryAcquireOverflow(key, now);
+            }
+            arrival = arrivals.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long tat = arrival.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (arrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Приватный метод, который засчитывает запрос неотслеживаемого ключа в слоте массива переполнения.
+     * <br> Незанятый слот содержит 0, что эквивалентно TAT в прошлом
+     */
+    private long tryAcquireOverflow(String key, long now) {
+        int h = (key.hashCode() ^ seed) * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & (OVERFLOW_SLOTS - 1);
+        while (true) {
+            long tat = overflowArrivals.get(slot);
+            long next = ((tat == 0) ? now : Math.max(tat, now)) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (overflowArrivals.compareAndSet(slot, tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Метод, который удаляет ключи, чьи корзины полностью восстановились
+     * @param now текущее время {@link System#nanoTime()}
+     */
+    public void sweep(long now) {
+        arrivals.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+    }
+
+    public int size() {
+        return arrivals.size();
+    }
+
+}
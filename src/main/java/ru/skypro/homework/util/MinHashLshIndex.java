@@ -0,0 +1,276 @@
+package ru.skypro.homework.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс похожих текстов на основе MinHash и locality-sensitive hashing.
+ * <br><br> Текст разбивается на символьные шинглы, для каждой из numHashes хеш-функций в сигнатуру записывается
+ * минимальный хеш шинглов. Доля совпадающих позиций двух сигнатур оценивает коэффициент Жаккара их наборов шинглов.
+ * <br> Сигнатура делится на bands полос по rows позиций, документы с совпадающей полосой попадают в одну корзину,
+ * поэтому кандидатами в похожие становятся только документы, разделяющие с запросом хотя бы одну корзину.
+ * <br> Сигнатуры хранятся массивами int, корзины – растущими массивами идентификаторов под собственной блокировкой,
+ * поэтому добавление в большую корзину выполняется за амортизированное O(1) и не блокирует другие корзины.
+ * Изменения одного документа выполняются под блокировкой его полосы идентификаторов, так что сигнатура и корзины
+ * документа всегда согласованы. Класс потокобезопасен.
+ */
+public class MinHashLshIndex {
+
+    private static final int SHINGLE_SIZE = 4;
+    private static final int ID_LOCK_STRIPES = 64;
+
+    private final int numHashes;
+    private final int bands;
+    private final int rows;
+    private final int maxTextLength;
+    private final int[] seeds;
+    private final ConcurrentHashMap<Integer, int[]> signatures = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Object[] idLocks = new Object[ID_LOCK_STRIPES];
+
+    public MinHashLshIndex(int numHashes, int bands, int maxTextLength) {
+        if (numHashes % bands != 0) {
+            throw new IllegalArgumentException("numHashes must be divisible by bands");
+        }
+        this.numHashes = numHashes;
+        this.bands = bands;
+        this.rows = numHashes / bands;
+        this.maxTextLength = maxTextLength;
+        this.seeds = new Random(0x5EED).ints(numHashes).toArray();
+        for (int i = 0; i < ID_LOCK_STRIPES; i++) {
+            idLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Метод, который вычисляет сигнатуру текста. Не меняет индекс, поэтому может вызываться параллельно.
+     * @param text текст
+     * @return сигнатура из numHashes значений
+     */
+    public int[] signature(String text) {
+        int[] signature = new int[numHashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        String normalized = normalize(text);
+        int shingles = Math.max(1, normalized.length() - SHINGLE_SIZE + 1);
+        for (int start = 0; start < shingles; start++) {
+            int shingleHash = 0;
+            int end = Math.min(start + SHINGLE_SIZE, normalized.length());
+            for (int i = start; i < end; i++) {
+                shingleHash = 31 * shingleHash + normalized.charAt(i);
+            }
+            for (int i = 0; i < numHashes; i++) {
+                int hash = mix(shingleHash ^ seeds[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Метод, который добавляет или заменяет сигнатуру документа
+     * @param id        идентификатор документа
+     * @param signature сигнатура, вычисленная методом {@link #signature}
+     */
+    public void put(int id, int[] signature) {
+        synchronized (idLock(id)) {
+            int[] previous = signatures.put(id, signature);
+            if (previous != null) {
+                removeFromBuckets(id, previous);
+            }
+            addToBuckets(id, signature);
+        }
+    }
+
+    /**
+     * Метод, который добавляет сигнатуру документа, только если документа еще нет в индексе
+     * @return true, если сигнатура добавлена
+     */
+    public boolean putIfAbsent(int id, int[] signature) {
+        synchronized (idLock(id)) {
+            if (signatures.putIfAbsent(id, signature) != null) {
+                return false;
+            }
+            addToBuckets(id, signature);
+            return true;
+        }
+    }
+
+    public void remove(int id) {
+        synchronized (idLock(id)) {
+            int[] previous = signatures.remove(id);
+            if (previous != null) {
+                removeFromBuckets(id, previous);
+            }
+        }
+    }
+
+    public int[] getSignature(int id) {
+        return signatures.get(id);
+    }
+
+    /**
+     * Метод, который ищет документы, похожие на переданную сигнатуру
+     * @param signature     сигнатура запроса
+     * @param excludeId     идентификатор, который нужно исключить из результата
+     * @param limit         максимальное количество результатов
+     * @param maxCandidates максимальное количество кандидатов, для которых оценивается сходство
+     * @return идентификаторы в порядке убывания оценки сходства
+     */
+    public List<Integer> query(int[] signature, int excludeId, int limit, int maxCandidates) {
+        Set<Integer> candidates = new HashSet<>();
+        for (int band = 0; band < bands && candidates.size() < maxCandidates; band++) {
+            Bucket bucket = buckets.get(bucketKey(band, signature));
+            if (bucket != null) {
+                bucket.collect(candidates, excludeId, maxCandidates);
+            }
+        }
+
+        int count = 0;
+        long[] scored = new long[candidates.size()];
+        for (Integer candidate : candidates) {
+            int[] other = signatures.get(candidate);
+            if (other != null) {
+                int matches = 0;
+                for (int i = 0; i < numHashes; i++) {
+                    if (signature[i] == other[i]) {
+                        matches++;
+                    }
+                }
+                scored[count++] = ((long) (numHashes - matches) << 32) | (candidate & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(scored, 0, count);
+
+        List<Integer> result = new ArrayList<>(Math.min(limit, count));
+        for (int i = 0; i < count && result.size() < limit; i++) {
+            result.add((int) scored[i]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    private void addToBuckets(int id, int[] signature) {
+        for (int band = 0; band < bands; band++) {
+            long key = bucketKey(band, signature);
+            while (!buckets.computeIfAbsent(key, k -> new Bucket()).add(id)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void removeFromBuckets(int id, int[] signature) {
+        for (int band = 0; band < bands; band++) {
+            long key = bucketKey(band, signature);
+            Bucket bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(id)) {
+                buckets.remove(key, bucket);
+            }
+        }
+    }
+
+    private Object idLock(int id) {
+        return idLocks[mix(id) & (ID_LOCK_STRIPES - 1)];
+    }
+
+    private long bucketKey(int band, int[] signature) {
+        int hash = 1;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            hash = 31 * hash + signature[i];
+        }
+        return ((long) band << 32) | (hash & 0xFFFFFFFFL);
+    }
+
+    private String normalize(String text) {
+        String lowerCase = text.length() > maxTextLength
+                ? text.substring(0, maxTextLength).toLowerCase(Locale.ROOT)
+                : text.toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(lowerCase.length());
+        boolean space = true;
+        for (int i = 0; i < lowerCase.length(); i++) {
+            char c = lowerCase.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+
+    /**
+     * Финализатор MurmurHash3, перемешивает биты хеша
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Корзина LSH: растущий массив идентификаторов под собственной блокировкой.
+     * <br> Опустевшая корзина помечается удаленной и убирается из таблицы корзин; добавление в удаленную корзину
+     * не выполняется, и вызывающий код берет из таблицы новую корзину.
+     */
+    private static final class Bucket {
+
+        private int[] ids = new int[4];
+        private int size;
+        private boolean removed;
+
+        /**
+         * @return false, если корзина уже удалена из таблицы
+         */
+        synchronized boolean add(int id) {
+            if (removed) {
+                return false;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+            return true;
+        }
+
+        /**
+         * @return true, если корзина опустела и ее нужно удалить из таблицы
+         */
+        synchronized boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    break;
+                }
+            }
+            if (size == 0) {
+                removed = true;
+            }
+            return removed;
+        }
+
+        synchronized void collect(Set<Integer> candidates, int excludeId, int maxCandidates) {
+            for (int i = 0; i < size && candidates.size() < maxCandidates; i++) {
+                if (ids[i] != excludeId) {
+                    candidates.add(ids[i]);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package ru.skypro.homework.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Перцептивный хеш изображения (dHash).
+ * <br><br> Изображение уменьшается до 9x8 точек в оттенках серого, каждый из 64 бит хеша показывает,
+ * светлее ли точка своего соседа справа. Пережатые, уменьшенные и слегка измененные копии изображения
+ * дают хеши, отличающиеся в небольшом количестве бит.
+ * <br> Размеры изображения читаются из заголовка до декодирования. Если точек больше maxPixels, изображение
+ * декодируется с прореживанием строк и столбцов, поэтому маленький файл с огромными размерами не займет всю память.
+ */
+public final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * Метод, который вычисляет хеш изображения
+     * @param data      содержимое файла изображения
+     * @param maxPixels максимальное количество декодируемых точек
+     * @return хеш или null, если формат изображения не поддерживается
+     */
+    public static Long dHash(byte[] data, long maxPixels) throws IOException {
+        BufferedImage image = read(data, maxPixels);
+        if (image == null) {
+            return null;
+        }
+        BufferedImage small = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = small.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, WIDTH, HEIGHT, null);
+        graphics.dispose();
+
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                int left = small.getRaster().getSample(x, y, 0);
+                int right = small.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Приватный метод, который декодирует изображение, прореживая его до maxPixels точек
+     * @return изображение или null, если формат не поддерживается
+     */
+    private static BufferedImage read(byte[] data, long maxPixels) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (pixels > maxPixels) {
+                    int step = (int) Math.ceil(Math.sqrt((double) pixels / maxPixels));
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+}
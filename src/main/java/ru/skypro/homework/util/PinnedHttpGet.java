@@ -0,0 +1,181 @@
+package ru.skypro.homework.util;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * GET-запрос по http(s) к заранее проверенному IP-адресу.
+ * <br><br> {@link java.net.HttpURLConnection} заново разрешает имя хоста при подключении, поэтому проверка адреса
+ * перед запросом ничего не гарантирует, если DNS успеет вернуть другой адрес. Здесь сокет подключается к переданному
+ * {@link InetAddress}, а имя хоста используется только в заголовке Host, в SNI и при проверке сертификата.
+ * <br> Запрос отправляется по HTTP/1.0 с Connection: close, поэтому сервер не использует chunked-кодирование,
+ * а тело ответа заканчивается по Content-Length или закрытию соединения. Перенаправления не выполняются.
+ */
+public final class PinnedHttpGet implements Closeable {
+
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final int status;
+    private final Map<String, String> headers;
+
+    private PinnedHttpGet(Socket socket, InputStream in, int status, Map<String, String> headers) {
+        this.socket = socket;
+        this.in = in;
+        this.status = status;
+        this.headers = headers;
+    }
+
+    /**
+     * Метод, который подключается к адресу, отправляет запрос и читает статус и заголовки ответа
+     * @param url     адрес ресурса http или https
+     * @param address проверенный IP-адрес хоста из url
+     * @param timeout таймаут подключения и чтения в миллисекундах
+     */
+    public static PinnedHttpGet open(URL url, InetAddress address, int timeout) throws IOException {
+        boolean https = "https".equals(url.getProtocol());
+        int port = (url.getPort() != -1) ? url.getPort() : url.getDefaultPort();
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(address, port), timeout);
+            socket.setSoTimeout(timeout);
+            if (https) {
+                socket = startTls(socket, hostName(url), port);
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(request(url).getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String statusLine = readLine(in);
+            String[] parts = statusLine.split(" ", 3);
+            if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+                throw new IOException("invalid HTTP status line");
+            }
+            int status;
+            try {
+                status = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IOException("invalid HTTP status line", e);
+            }
+            Map<String, String> headers = new HashMap<>();
+            int headerBytes = statusLine.length();
+            for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+                headerBytes += line.length();
+                if (headerBytes > MAX_HEADER_BYTES) {
+                    throw new IOException("HTTP response headers are too large");
+                }
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    headers.putIfAbsent(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                            line.substring(colon + 1).trim());
+                }
+            }
+            return new PinnedHttpGet(socket, in, status, headers);
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Метод, который возвращает первый заголовок ответа с этим именем без учета регистра или null
+     */
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Метод, который читает тело ответа, но не больше maxBytes байт
+     * @return тело ответа или его первые maxBytes байт
+     */
+    public byte[] readBody(int maxBytes) throws IOException {
+        long limit = maxBytes;
+        String contentLength = getHeader("Content-Length");
+        if (contentLength != null) {
+            try {
+                limit = Math.min(limit, Long.parseLong(contentLength));
+            } catch (NumberFormatException e) {
+                throw new IOException("invalid Content-Length", e);
+            }
+        }
+        return in.readNBytes((int) Math.max(0, limit));
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    /**
+     * Приватный метод, который начинает TLS поверх подключенного сокета с SNI и проверкой имени хоста в сертификате
+     */
+    private static Socket startTls(Socket socket, String host, int port) throws IOException {
+        SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                .createSocket(socket, host, port, true);
+        SSLParameters parameters = sslSocket.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        sslSocket.setSSLParameters(parameters);
+        sslSocket.startHandshake();
+        return sslSocket;
+    }
+
+    private static String request(URL url) {
+        String path = url.getFile().isEmpty() ? "/" : url.getFile();
+        String host = (url.getPort() == -1 || url.getPort() == url.getDefaultPort())
+                ? url.getHost()
+                : url.getHost() + ":" + url.getPort();
+        return "GET " + path + " HTTP/1.0\r\n"
+                + "Host: " + host + "\r\n"
+                + "Accept: image/*\r\n"
+                + "Connection: close\r\n"
+                + "\r\n";
+    }
+
+    /**
+     * Приватный метод, который возвращает имя хоста без квадратных скобок IPv6
+     */
+    private static String hostName(URL url) {
+        String host = url.getHost();
+        return (host.startsWith("[") && host.endsWith("]")) ? host.substring(1, host.length() - 1) : host;
+    }
+
+    /**
+     * Приватный метод, который читает строку ответа до CRLF или LF
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b == -1) {
+                throw new IOException("unexpected end of HTTP response headers");
+            }
+            if (line.size() > MAX_HEADER_BYTES) {
+                throw new IOException("HTTP response headers are too large");
+            }
+            line.write(b);
+        }
+        String value = line.toString(StandardCharsets.ISO_8859_1);
+        return value.endsWith("\r") ? value.substring(0, value.length() - 1) : value;
+    }
+
+}
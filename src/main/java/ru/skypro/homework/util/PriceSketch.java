@@ -0,0 +1,168 @@
+package ru.skypro.homework.util;
+
+import java.util.Arrays;
+
+/**
+ * Скетч распределения цен с логарифмическими корзинами (DDSketch).
+ * <br><br> Цена v > 0 попадает в корзину ceil(log(v) / log(gamma)), где gamma = (1 + a) / (1 - a),
+ * поэтому любая квантиль оценивается с относительной погрешностью не больше a. Цены не больше нуля
+ * считаются в отдельной нулевой корзине.
+ * <br> В отличие от t-digest и KLL скетч поддерживает удаление значений: добавление и удаление цены
+ * меняют только счетчик одной корзины.
+ * <br> Дополнительно хранятся точные количества цен в корзинах [2^k, 2^(k+1)) для гистограммы. Класс не потокобезопасен.
+ */
+public class PriceSketch {
+
+    private static final int HISTOGRAM_BUCKETS = 32;
+
+    private final double gamma;
+    private final double logGamma;
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private long sum;
+    private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+
+    public PriceSketch(double relativeAccuracy) {
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Метод, который добавляет цену в скетч
+     */
+    public void add(int price) {
+        update(price, 1);
+    }
+
+    /**
+     * Метод, который удаляет ранее добавленную цену из скетча.
+     * <br> Цена, которой нет в скетче, не учитывается.
+     */
+    public void remove(int price) {
+        update(price, -1);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Метод, который оценивает квантиль распределения цен
+     * @param q уровень квантили от 0 до 1
+     * @return оценка квантили или null, если скетч пуст
+     */
+    public Long quantile(double q) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        if (rank < zeroCount) {
+            return 0L;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return Math.round(2 * Math.pow(gamma, offset + i) / (gamma + 1));
+            }
+        }
+        return Math.round(2 * Math.pow(gamma, offset + counts.length - 1) / (gamma + 1));
+    }
+
+    /**
+     * Метод, который возвращает количество цен в корзине [2^k, 2^(k+1)) гистограммы, в корзине 0 – цены не больше 1
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    /**
+     * Метод, который записывает скетч в строку для сохранения в базе данных
+     * @return строка вида count;sum;zeroCount;offset;counts;histogram
+     */
+    public String encode() {
+        return count + ";" + sum + ";" + zeroCount + ";" + offset + ";" + join(counts) + ";" + join(histogram);
+    }
+
+    /**
+     * Метод, который восстанавливает скетч из строки, записанной методом {@link PriceSketch#encode}
+     */
+    public static PriceSketch decode(String encoded, double relativeAccuracy) {
+        String[] parts = encoded.split(";", -1);
+        PriceSketch sketch = new PriceSketch(relativeAccuracy);
+        sketch.count = Long.parseLong(parts[0]);
+        sketch.sum = Long.parseLong(parts[1]);
+        sketch.zeroCount = Long.parseLong(parts[2]);
+        sketch.offset = Integer.parseInt(parts[3]);
+        sketch.counts = split(parts[4]);
+        long[] histogram = split(parts[5]);
+        System.arraycopy(histogram, 0, sketch.histogram, 0, Math.min(histogram.length, HISTOGRAM_BUCKETS));
+        return sketch;
+    }
+
+    private void update(int price, int delta) {
+        int histogramIndex = (price <= 1) ? 0 : 31 - Integer.numberOfLeadingZeros(price);
+        if (delta < 0 && histogram[histogramIndex] == 0) {
+            return;
+        }
+        if (price <= 0) {
+            if (delta < 0 && zeroCount == 0) {
+                return;
+            }
+            zeroCount += delta;
+        } else {
+            int index = (int) Math.ceil(Math.log(price) / logGamma);
+            if (delta < 0 && (index < offset || index >= offset + counts.length || counts[index - offset] == 0)) {
+                return;
+            }
+            ensureIndex(index);
+            counts[index - offset] += delta;
+        }
+        histogram[histogramIndex] += delta;
+        count += delta;
+        sum += (long) delta * price;
+    }
+
+    private void ensureIndex(int index) {
+        if (counts.length == 0) {
+            counts = new long[1];
+            offset = index;
+        } else if (index < offset) {
+            long[] grown = new long[counts.length + offset - index];
+            System.arraycopy(counts, 0, grown, offset - index, counts.length);
+            counts = grown;
+            offset = index;
+        } else if (index >= offset + counts.length) {
+            counts = Arrays.copyOf(counts, index - offset + 1);
+        }
+    }
+
+    private static String join(long[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(values[i]);
+        }
+        return builder.toString();
+    }
+
+    private static long[] split(String values) {
+        if (values.isEmpty()) {
+            return new long[0];
+        }
+        return Arrays.stream(values.split(",")).mapToLong(Long::parseLong).toArray();
+    }
+
+}
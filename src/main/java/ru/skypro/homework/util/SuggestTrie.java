@@ -0,0 +1,296 @@
+package ru.skypro.homework.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Префиксное дерево слов с весами для автодополнения.
+ * <br><br> Вес слова – количество объявлений, в заголовках которых оно встречается.
+ * Каждый узел хранит максимальный вес слов своего поддерева, поэтому лучшие дополнения префикса
+ * находятся обходом в порядке убывания этого веса без просмотра всего поддерева.
+ * <br> Опечатки учитываются обходом дерева с построчным вычислением расстояния Левенштейна
+ * (автомат Левенштейна, заданный строкой динамического программирования): ветви, в которых расстояние
+ * до префикса запроса заведомо больше допустимого, отсекаются.
+ * <br> Дети узла хранятся отсортированными массивами символов и узлов. Класс потокобезопасен.
+ */
+public class SuggestTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+    private final int maxWords;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int words;
+
+    /**
+     * @param maxWords максимальное количество различных слов, ограничивающее расход памяти
+     */
+    public SuggestTrie(int maxWords) {
+        this.maxWords = maxWords;
+    }
+
+    /**
+     * Метод, который увеличивает вес слова на единицу.
+     * <br> Новое слово не добавляется, если количество слов достигло maxWords.
+     * @return true, если вес слова увеличен
+     */
+    public boolean increment(String word) {
+        lock.writeLock().lock();
+        try {
+            Node[] path = new Node[word.length() + 1];
+            path[0] = root;
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                Node child = node.child(word.charAt(i));
+                if (child == null) {
+                    if (words >= maxWords) {
+                        return false;
+                    }
+                    child = node.addChild(word.charAt(i));
+                }
+                node = child;
+                path[i + 1] = node;
+            }
+            if (node.weight == 0) {
+                if (words >= maxWords) {
+                    return false;
+                }
+                node.word = word;
+                words++;
+            }
+            node.weight++;
+            for (int i = path.length - 1; i >= 0 && path[i].maxWeight < node.weight; i--) {
+                path[i].maxWeight = node.weight;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод, который уменьшает вес слова на единицу.
+     * <br> Слово с нулевым весом удаляется вместе с опустевшими узлами.
+     */
+    public void decrement(String word) {
+        lock.writeLock().lock();
+        try {
+            Node[] path = new Node[word.length() + 1];
+            path[0] = root;
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.child(word.charAt(i));
+                if (node == null) {
+                    return;
+                }
+                path[i + 1] = node;
+            }
+            if (node.weight == 0) {
+                return;
+            }
+            node.weight--;
+            if (node.weight == 0) {
+                node.word = null;
+                words--;
+            }
+            for (int i = path.length - 1; i >= 0; i--) {
+                Node current = path[i];
+                if (i > 0 && current.weight == 0 && current.keys.length == 0) {
+                    path[i - 1].removeChild(word.charAt(i - 1));
+                }
+                current.recalculateMaxWeight();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод, который ищет слова, начинающиеся с префикса или с префикса, отличающегося от него
+     * не более чем на maxEdits правок (вставка, удаление или замена символа).
+     * <br> Слова с меньшим числом правок идут первыми, при равном числе правок – в порядке убывания веса.
+     * @param prefix   префикс
+     * @param maxEdits допустимое количество правок
+     * @param limit    максимальное количество слов
+     * @return найденные слова
+     */
+    public List<String> complete(String prefix, int maxEdits, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            List<List<Node>> startsByEdits = new ArrayList<>(maxEdits + 1);
+            for (int i = 0; i <= maxEdits; i++) {
+                startsByEdits.add(new ArrayList<>());
+            }
+            int[] row = new int[prefix.length() + 1];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = i;
+            }
+            collectStarts(root, prefix, row, maxEdits, startsByEdits);
+
+            List<String> result = new ArrayList<>(limit);
+            Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (List<Node> starts : startsByEdits) {
+                collectBest(starts, visited, limit, result);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return words;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Приватный метод, который обходит дерево и собирает узлы, путь к которым совпадает с префиксом
+     * с точностью до maxEdits правок. Каждый узел записывается в список с наименьшим числом правок.
+     */
+    private void collectStarts(Node node, String prefix, int[] row, int maxEdits, List<List<Node>> startsByEdits) {
+        int edits = row[prefix.length()];
+        if (edits <= maxEdits) {
+            startsByEdits.get(edits).add(node);
+        }
+        for (int c = 0; c < node.keys.length; c++) {
+            Node child = node.children[c];
+            if (child.maxWeight == 0) {
+                continue;
+            }
+            char key = node.keys[c];
+            int[] next = new int[row.length];
+            next[0] = row[0] + 1;
+            int min = next[0];
+            for (int i = 1; i < row.length; i++) {
+                int cost = (prefix.charAt(i - 1) == key) ? 0 : 1;
+                next[i] = Math.min(Math.min(next[i - 1] + 1, row[i] + 1), row[i - 1] + cost);
+                min = Math.min(min, next[i]);
+            }
+            if (min <= maxEdits) {
+                collectStarts(child, prefix, next, maxEdits, startsByEdits);
+            }
+        }
+    }
+
+    /**
+     * Приватный метод, который добавляет в результат слова с наибольшим весом из поддеревьев узлов.
+     * <br> В очереди лежат узлы с приоритетом maxWeight и слова с приоритетом weight,
+     * поэтому слово извлекается не раньше, чем все поддеревья с более тяжелыми словами.
+     */
+    private void collectBest(List<Node> starts, Set<Node> visited, int limit, List<String> result) {
+        PriorityQueue<Entry> queue = new PriorityQueue<>((a, b) -> Integer.compare(b.priority, a.priority));
+        for (Node start : starts) {
+            if (start.maxWeight > 0) {
+                queue.add(new Entry(start, false, start.maxWeight));
+            }
+        }
+        while (!queue.isEmpty() && result.size() < limit) {
+            Entry entry = queue.poll();
+            Node node = entry.node;
+            if (entry.word) {
+                if (visited.add(node)) {
+                    result.add(node.word);
+                }
+                continue;
+            }
+            if (node.weight > 0) {
+                queue.add(new Entry(node, true, node.weight));
+            }
+            for (Node child : node.children) {
+                if (child.maxWeight > 0) {
+                    queue.add(new Entry(child, false, child.maxWeight));
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Node node;
+        private final boolean word;
+        private final int priority;
+
+        private Entry(Node node, boolean word, int priority) {
+            this.node = node;
+            this.word = word;
+            this.priority = priority;
+        }
+    }
+
+    private static final class Node {
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int weight;
+        private int maxWeight;
+        private String word;
+
+        private Node child(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            return (i >= 0) ? children[i] : null;
+        }
+
+        private Node addChild(char key) {
+            int i = -Arrays.binarySearch(keys, key) - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            Node child = new Node();
+            newKeys[i] = key;
+            newChildren[i] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        private void removeChild(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i < 0) {
+                return;
+            }
+            if (keys.length == 1) {
+                keys = NO_KEYS;
+                children = NO_CHILDREN;
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private void recalculateMaxWeight() {
+            int max = weight;
+            for (Node child : children) {
+                max = Math.max(max, child.maxWeight);
+            }
+            maxWeight = max;
+        }
+    }
+
+}
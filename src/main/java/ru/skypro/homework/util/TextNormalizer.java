@@ -0,0 +1,120 @@
+package ru.skypro.homework.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Нормализация текста для поиска запрещенных слов.
+ * <br><br> Каждый символ приводится к нижнему регистру, лишается диакритики и совместимых форм (полноширинные буквы,
+ * лигатуры), кириллица транслитерируется в латиницу, а похожие на буквы цифры и символы (0, 3, @, $ и т. п.)
+ * и греческие буквы-двойники заменяются буквами, а невидимые символы форматирования и диакритические знаки удаляются.
+ * Поэтому «Спам», «спaм», «SPAM» и «$п@м» нормализуются одинаково.
+ * <br> Для каждого символа нормализованного текста запоминается индекс исходного символа,
+ * чтобы найденные слова можно было замаскировать в исходном тексте.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final String[] FOLDED = new String[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (Character.isSurrogate((char) c)) {
+                continue;
+            }
+            String source = String.valueOf((char) c);
+            int type = Character.getType(c);
+            if (type == Character.FORMAT || type == Character.NON_SPACING_MARK
+                    || type == Character.ENCLOSING_MARK || type == Character.COMBINING_SPACING_MARK) {
+                FOLDED[c] = "";
+                continue;
+            }
+            if (Character.toLowerCase((char) c) == c && Normalizer.isNormalized(source, Normalizer.Form.NFKD)) {
+                continue;
+            }
+            String folded = COMBINING_MARKS.matcher(Normalizer.normalize(source, Normalizer.Form.NFKD))
+                    .replaceAll("")
+                    .toLowerCase(Locale.ROOT);
+            if (!folded.equals(source)) {
+                FOLDED[c] = folded;
+            }
+        }
+        String[][] replacements = {
+                {"а", "a"}, {"б", "b"}, {"в", "v"}, {"г", "g"}, {"д", "d"}, {"е", "e"}, {"ё", "e"},
+                {"ж", "zh"}, {"з", "z"}, {"и", "i"}, {"й", "i"}, {"к", "k"}, {"л", "l"}, {"м", "m"},
+                {"н", "n"}, {"о", "o"}, {"п", "p"}, {"р", "r"}, {"с", "s"}, {"т", "t"}, {"у", "u"},
+                {"ф", "f"}, {"х", "h"}, {"ц", "ts"}, {"ч", "ch"}, {"ш", "sh"}, {"щ", "sch"}, {"ъ", ""},
+                {"ы", "y"}, {"ь", ""}, {"э", "e"}, {"ю", "yu"}, {"я", "ya"}, {"і", "i"}, {"ї", "i"},
+                {"є", "e"}, {"ў", "u"},
+                {"α", "a"}, {"β", "b"}, {"ε", "e"}, {"η", "n"}, {"ι", "i"}, {"κ", "k"}, {"ν", "v"},
+                {"ο", "o"}, {"ρ", "p"}, {"τ", "t"}, {"υ", "u"}, {"χ", "x"},
+                {"0", "o"}, {"1", "i"}, {"3", "e"}, {"4", "a"}, {"5", "s"}, {"7", "t"},
+                {"@", "a"}, {"$", "s"}, {"|", "i"}
+        };
+        for (String[] replacement : replacements) {
+            char lower = replacement[0].charAt(0);
+            FOLDED[lower] = replacement[1];
+            FOLDED[Character.toUpperCase(lower)] = replacement[1];
+        }
+    }
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Метод, который нормализует текст
+     * @param text исходный текст
+     * @return нормализованный текст с индексами исходных символов
+     */
+    public static Normalized normalize(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        int[] origins = new int[text.length() * 2 + 8];
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String folded = FOLDED[c];
+            if (folded == null) {
+                origins = append(builder, origins, c, i);
+            } else {
+                for (int j = 0; j < folded.length(); j++) {
+                    origins = append(builder, origins, folded.charAt(j), i);
+                }
+            }
+        }
+        return new Normalized(builder.toString(), origins);
+    }
+
+    private static int[] append(StringBuilder builder, int[] origins, char c, int origin) {
+        if (builder.length() == origins.length) {
+            int[] grown = new int[origins.length * 2];
+            System.arraycopy(origins, 0, grown, 0, origins.length);
+            origins = grown;
+        }
+        origins[builder.length()] = origin;
+        builder.append(c);
+        return origins;
+    }
+
+    public static final class Normalized {
+
+        private final String text;
+        private final int[] origins;
+
+        private Normalized(String text, int[] origins) {
+            this.text = text;
+            this.origins = origins;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Метод, который возвращает индекс символа исходного текста, из которого получен символ нормализованного текста
+         */
+        public int originOf(int index) {
+            return origins[index];
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package ru.skypro.homework.util;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Разбиение заголовков объявлений на слова для индексов в памяти
+ */
+public final class TitleWords {
+
+    public static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TitleWords() {
+    }
+
+    /**
+     * Метод, который разбивает заголовок на различные слова в нижнем регистре длиннее одного символа
+     * @param title     заголовок или null
+     * @param maxLength длина, до которой обрезаются слова
+     * @return слова в порядке первого появления
+     */
+    public static Set<String> of(String title, int maxLength) {
+        Set<String> words = new LinkedHashSet<>();
+        if (title == null) {
+            return words;
+        }
+        for (String word : WORD_SEPARATOR.split(title.toLowerCase(Locale.ROOT))) {
+            if (word.length() > 1) {
+                words.add((word.length() > maxLength) ? word.substring(0, maxLength) : word);
+            }
+        }
+        return words;
+    }
+
+}
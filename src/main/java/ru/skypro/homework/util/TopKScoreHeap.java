@@ -0,0 +1,153 @@
+package ru.skypro.homework.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Ограниченный набор из не более чем capacity ключей с наибольшими счетами.
+ * <br><br> Ключи хранятся в двоичной куче с минимумом в корне, а хеш-индекс хранит позицию каждого ключа в куче,
+ * поэтому увеличение счета, вытеснение минимального ключа и удаление выполняются за O(log n).
+ * <br> Класс не потокобезопасен.
+ */
+public class TopKScoreHeap {
+
+    private final int capacity;
+    private final int[] keys;
+    private final double[] scores;
+    private final Map<Integer, Integer> positions;
+    private int size;
+
+    public TopKScoreHeap(int capacity) {
+        this.capacity = capacity;
+        this.keys = new int[capacity];
+        this.scores = new double[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Метод, который увеличивает счет ключа.
+     * <br> Если ключа нет, а набор заполнен, ключ вытесняет ключ с минимальным счетом, только если его счет больше.
+     * @param key   ключ
+     * @param delta неотрицательное приращение счета
+     */
+    public void add(int key, double delta) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            scores[position] += delta;
+            siftDown(position);
+        } else if (size < capacity) {
+            keys[size] = key;
+            scores[size] = delta;
+            positions.put(key, size);
+            siftUp(size++);
+        } else if (delta > scores[0]) {
+            positions.remove(keys[0]);
+            keys[0] = key;
+            scores[0] = delta;
+            positions.put(key, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Метод, который удаляет ключ из набора
+     * @param key ключ
+     */
+    public void remove(int key) {
+        Integer position = positions.remove(key);
+        if (position == null) {
+            return;
+        }
+        int last = --size;
+        if (position != last) {
+            int moved = keys[last];
+            keys[position] = moved;
+            scores[position] = scores[last];
+            positions.put(moved, position);
+            siftUp(position);
+            siftDown(positions.get(moved));
+        }
+    }
+
+    /**
+     * Метод, который умножает все счета на общий множитель, порядок ключей при этом не меняется
+     * @param factor положительный множитель
+     */
+    public void rescale(double factor) {
+        for (int i = 0; i < size; i++) {
+            scores[i] *= factor;
+        }
+    }
+
+    /**
+     * Метод, который возвращает ключи в порядке убывания счета
+     */
+    public int[] sortedKeys() {
+        Integer[] indexes = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, (a, b) -> Double.compare(scores[b], scores[a]));
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = keys[indexes[i]];
+        }
+        return result;
+    }
+
+    public void forEach(BiConsumer<Integer, Double> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(keys[i], scores[i]);
+        }
+    }
+
+    public void clear() {
+        positions.clear();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (scores[parent] <= scores[position]) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int smallest = (right < size && scores[right] < scores[left]) ? right : left;
+            if (scores[position] <= scores[smallest]) {
+                break;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int key = keys[i];
+        double score = scores[i];
+        keys[i] = keys[j];
+        scores[i] = scores[j];
+        keys[j] = key;
+        scores[j] = score;
+        positions.put(keys[i], i);
+        positions.put(keys[j], j);
+    }
+
+}
@@ -0,0 +1,10 @@
+-- liquibase formatted sql
+
+-- changeset rzrazhevskiy:4
+
+CREATE TABLE ad_changes (
+                       seq BIGSERIAL PRIMARY KEY,
+                       ad_pk INT NOT NULL,
+                       change_type VARCHAR(16) NOT NULL,
+                       changed_at BIGINT NOT NULL
+)
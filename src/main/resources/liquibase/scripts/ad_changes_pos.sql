@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset rzrazhevskiy:10
+ALTER TABLE ad_changes ADD COLUMN pos BIGINT;
+UPDATE ad_changes SET pos = seq;
+CREATE SEQUENCE ad_changes_pos_seq;
+SELECT setval('ad_changes_pos_seq', COALESCE((SELECT MAX(seq) FROM ad_changes), 0) + 1, false);
+CREATE UNIQUE INDEX ad_changes_pos_idx ON ad_changes (pos);
+CREATE INDEX ad_changes_pending_idx ON ad_changes (seq) WHERE pos IS NULL;
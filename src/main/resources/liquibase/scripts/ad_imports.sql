@@ -0,0 +1,12 @@
+-- liquibase formatted sql
+
+-- changeset rzrazhevskiy:5
+
+CREATE TABLE ad_imports (
+                       id VARCHAR(36) PRIMARY KEY,
+                       author INT REFERENCES users (id),
+                       committed_rows BIGINT NOT NULL,
+                       imported_rows BIGINT NOT NULL,
+                       failed_rows BIGINT NOT NULL,
+                       updated_at BIGINT NOT NULL
+)
@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset rzrazhevskiy:8
+
+CREATE TABLE ad_price_stats (
+                       keyword VARCHAR(64) PRIMARY KEY,
+                       sketch TEXT NOT NULL,
+                       checkpoint_seq BIGINT NOT NULL
+)
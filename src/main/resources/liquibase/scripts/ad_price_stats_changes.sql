@@ -0,0 +1,6 @@
+-- liquibase formatted sql
+
+-- changeset rzrazhevskiy:11
+
+DELETE FROM ad_price_stats;
+ALTER TABLE ad_price_stats RENAME COLUMN checkpoint_seq TO checkpoint_changes;
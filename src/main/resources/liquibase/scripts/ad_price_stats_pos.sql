@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset rzrazhevskiy:12
+
+DELETE FROM ad_price_stats;
+ALTER TABLE ad_price_stats RENAME COLUMN checkpoint_changes TO checkpoint_pos;
+ALTER TABLE ad_price_stats ADD COLUMN keywords_complete BOOLEAN NOT NULL DEFAULT FALSE;
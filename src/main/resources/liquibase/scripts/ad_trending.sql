@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset rzrazhevskiy:7
+
+CREATE TABLE ad_trending (
+                       ad_pk INT PRIMARY KEY,
+                       score DOUBLE PRECISION NOT NULL,
+                       checkpoint_at BIGINT NOT NULL
+)
@@ -0,0 +1,5 @@
+-- liquibase formatted sql
+
+-- changeset rzrazhevskiy:6
+
+ALTER TABLE ads ADD COLUMN views BIGINT NOT NULL DEFAULT 0
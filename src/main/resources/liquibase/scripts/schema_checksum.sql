@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset rzrazhevskiy:9
+CREATE TABLE schema_checksum (
+                       id INT PRIMARY KEY,
+                       checksum VARCHAR(64) NOT NULL
+);
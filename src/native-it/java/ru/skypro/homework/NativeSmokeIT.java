@@ -0,0 +1,119 @@
+package ru.skypro.homework;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка нативного исполняемого файла (профиль native, фаза integration-test).
+ * <br><br> Файл native.binary запускается с базой данных PostgreSQL в Testcontainers, после чего проверяются
+ * чтение объявлений, регистрация и вход. Ошибки конфигурации рефлексии и ресурсов проявляются только в нативном
+ * образе, поэтому тест запускает собранный файл, а не контекст Spring в JVM.
+ */
+@Testcontainers
+class NativeSmokeIT {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    private static Process application;
+    private static String baseUrl;
+
+    @BeforeAll
+    static void startApplication() throws Exception {
+        Path binary = Path.of(System.getProperty("native.binary", "target/ads"));
+        assertTrue(Files.isExecutable(binary), "native binary not found: " + binary);
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        baseUrl = "http://localhost:" + port;
+        application = new ProcessBuilder(binary.toString(),
+                "-Djava.awt.headless=true",
+                "--server.port=" + port,
+                "--spring.datasource.url=" + POSTGRES.getJdbcUrl(),
+                "--spring.datasource.username=" + POSTGRES.getUsername(),
+                "--spring.datasource.password=" + POSTGRES.getPassword())
+                .inheritIO()
+                .start();
+
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (true) {
+            assertTrue(application.isAlive(), "native binary exited with code " + application.exitValue());
+            try {
+                if (get("/ads").statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // приложение еще не слушает порт
+            }
+            assertTrue(System.nanoTime() < deadline, "native binary did not start in " + STARTUP_TIMEOUT);
+            Thread.sleep(200);
+        }
+    }
+
+    @AfterAll
+    static void stopApplication() throws InterruptedException {
+        if (application != null) {
+            application.destroy();
+            if (!application.waitFor(10, TimeUnit.SECONDS)) {
+                application.destroyForcibly();
+            }
+        }
+    }
+
+    @Test
+    void listsAds() throws Exception {
+        HttpResponse<String> response = get("/ads");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"results\""), response.body());
+    }
+
+    @Test
+    void registersAndLogsIn() throws Exception {
+        HttpResponse<String> registered = post("/register", "{\"username\":\"native@gmail.com\","
+                + "\"password\":\"native@gmail.com\",\"firstName\":\"Native\",\"lastName\":\"Smoke\","
+                + "\"phone\":\"+7 (913) 213-55-57\",\"role\":\"USER\"}");
+        assertEquals(201, registered.statusCode());
+
+        assertEquals(200, post("/login", "{\"username\":\"native@gmail.com\",\"password\":\"native@gmail.com\"}").statusCode());
+        assertEquals(401, post("/login", "{\"username\":\"native@gmail.com\",\"password\":\"wrong\"}").statusCode());
+    }
+
+    private static HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return CLIENT.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        return CLIENT.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+}
@@ -0,0 +1,66 @@
+package ru.skypro.homework.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.util.ClassUtils;
+import ru.skypro.homework.dto.AdDto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Форматы CBOR и Smile есть только в профиле Maven compact-encodings: mvn -Pcompact-encodings test
+ */
+class JacksonConfigTest {
+
+    private final JacksonConfig config = new JacksonConfig();
+
+    @Test
+    void cborConverterWritesFilteredDtoWithoutFields() throws Exception {
+        assumeTrue(isPresent(JacksonConfig.CBOR_FACTORY), "jackson-dataformat-cbor is not on the classpath");
+        assertRoundTrip(config.cborHttpMessageConverter(builder()), new MediaType("application", "cbor"));
+    }
+
+    @Test
+    void smileConverterWritesFilteredDtoWithoutFields() throws Exception {
+        assumeTrue(isPresent(JacksonConfig.SMILE_FACTORY), "jackson-dataformat-smile is not on the classpath");
+        assertRoundTrip(config.smileHttpMessageConverter(builder()), new MediaType("application", "x-jackson-smile"));
+    }
+
+    @Test
+    void registersBlackbirdWhenPresent() {
+        assumeTrue(isPresent(JacksonConfig.BLACKBIRD_MODULE), "jackson-module-blackbird is not on the classpath");
+        assertTrue(builder().build().getRegisteredModuleIds().stream()
+                .anyMatch(id -> id.toString().contains("Blackbird")));
+    }
+
+    private Jackson2ObjectMapperBuilder builder() {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        config.fieldsFilterCustomizer().customize(builder);
+        return builder;
+    }
+
+    private static void assertRoundTrip(AbstractJackson2HttpMessageConverter converter, MediaType mediaType) throws Exception {
+        AdDto ad = new AdDto();
+        ad.setPk(1);
+        ad.setAuthor(2);
+        ad.setPrice(100);
+        ad.setTitle("Велосипед");
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(ad, mediaType, output);
+
+        assertEquals(mediaType, output.getHeaders().getContentType());
+        Object read = converter.read(AdDto.class, new MockHttpInputMessage(output.getBodyAsBytes()));
+        assertEquals(ad, read);
+    }
+
+    private static boolean isPresent(String className) {
+        return ClassUtils.isPresent(className, JacksonConfigTest.class.getClassLoader());
+    }
+
+}
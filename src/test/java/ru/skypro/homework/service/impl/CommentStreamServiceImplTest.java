@@ -0,0 +1,171 @@
+package ru.skypro.homework.service.impl;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitterReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.skypro.homework.dto.CommentDto;
+import ru.skypro.homework.dto.CommentEventType;
+import ru.skypro.homework.service.impl.CommentStreamServiceImpl.OverflowPolicy;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommentStreamServiceImplTest {
+
+    private final ManualExecutor executor = new ManualExecutor();
+
+    @Test
+    void sendsEventsToSubscribersOfTheAd() throws Exception {
+        CommentStreamServiceImpl service = service(1, 4, OverflowPolicy.DROP_OLDEST);
+        MockHttpServletResponse subscriber = connect(service.subscribe(1));
+        MockHttpServletResponse otherAd = connect(service.subscribe(2));
+
+        service.publish(1, CommentEventType.CREATED, comment("first"));
+        service.publish(1, CommentEventType.DELETED, comment("second"));
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        String events = subscriber.getContentAsString();
+        assertTrue(events.contains("event:CREATED"));
+        assertTrue(events.indexOf("first") < events.indexOf("second"));
+        assertEquals("", otherAd.getContentAsString());
+    }
+
+    @Test
+    void dropOldestKeepsNewestEvents() throws Exception {
+        CommentStreamServiceImpl service = service(1, 2, OverflowPolicy.DROP_OLDEST);
+        MockHttpServletResponse subscriber = connect(service.subscribe(1));
+
+        for (int i = 1; i <= 5; i++) {
+            service.publish(1, CommentEventType.CREATED, comment("event-" + i));
+        }
+        executor.runAll();
+
+        String events = subscriber.getContentAsString();
+        assertFalse(events.contains("event-3"));
+        assertTrue(events.contains("event-4"));
+        assertTrue(events.contains("event-5"));
+    }
+
+    @Test
+    void disconnectPolicyReleasesSlowSubscriber() throws Exception {
+        CommentStreamServiceImpl service = service(1, 1, OverflowPolicy.DISCONNECT);
+        connect(service.subscribe(1));
+        assertNull(service.subscribe(1));
+
+        service.publish(1, CommentEventType.CREATED, comment("first"));
+        service.publish(1, CommentEventType.CREATED, comment("second"));
+
+        assertNotNull(service.subscribe(1));
+    }
+
+    @Test
+    void publishesOnlyAfterCommit() throws Exception {
+        CommentStreamServiceImpl service = service(1, 4, OverflowPolicy.DROP_OLDEST);
+        MockHttpServletResponse subscriber = connect(service.subscribe(1));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.publish(1, CommentEventType.UPDATED, comment("edited"));
+            assertTrue(executor.tasks.isEmpty());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        executor.runAll();
+
+        assertTrue(subscriber.getContentAsString().contains("edited"));
+    }
+
+    @Test
+    void sendsHeartbeatToIdleSubscribers() throws Exception {
+        CommentStreamServiceImpl service = new CommentStreamServiceImpl(executor, 1, 4, 60_000, 0, OverflowPolicy.DROP_OLDEST);
+        MockHttpServletResponse subscriber = connect(service.subscribe(1));
+
+        Thread.sleep(5);
+        service.heartbeat();
+        executor.runAll();
+
+        assertTrue(subscriber.getContentAsString().contains(":heartbeat"));
+    }
+
+    private CommentStreamServiceImpl service(int maxSubscribers, int bufferSize, OverflowPolicy overflowPolicy) {
+        return new CommentStreamServiceImpl(executor, maxSubscribers, bufferSize, 60_000, 60_000, overflowPolicy);
+    }
+
+    private CommentDto comment(String text) {
+        CommentDto comment = new CommentDto();
+        comment.setText(text);
+        return comment;
+    }
+
+    /**
+     * Метод, который передает поток событий в Spring MVC так же, как контроллер, и возвращает ответ с отправленными событиями
+     */
+    private MockHttpServletResponse connect(SseEmitter emitter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        WebAsyncUtils.getAsyncManager(webRequest).setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        ResponseBodyEmitterReturnValueHandler handler = new ResponseBodyEmitterReturnValueHandler(List.of(
+                new StringHttpMessageConverter(),
+                new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json()
+                        .filters(new SimpleFilterProvider().setFailOnUnknownId(false))
+                        .build())));
+        MethodParameter returnType = new MethodParameter(getClass().getDeclaredMethod("stream"), -1);
+        handler.handleReturnValue(emitter, returnType, new ModelAndViewContainer(), webRequest);
+        return response;
+    }
+
+    @SuppressWarnings("unused")
+    private SseEmitter stream() {
+        return null;
+    }
+
+    /**
+     * Пул, который выполняет задачи только по команде теста
+     */
+    private static class ManualExecutor extends ThreadPoolTaskExecutor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        private void runAll() {
+            Runnable task;
+            while ((task = poll()) != null) {
+                task.run();
+            }
+        }
+
+        private synchronized Runnable poll() {
+            return tasks.poll();
+        }
+    }
+
+}
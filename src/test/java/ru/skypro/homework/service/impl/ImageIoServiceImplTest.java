@@ -0,0 +1,168 @@
+package ru.skypro.homework.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageIoServiceImplTest {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ImageIoServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        service = new ImageIoServiceImpl(executor, 1, 60_000);
+    }
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void completesWithTaskResult() throws Exception {
+        DeferredResult<ResponseEntity<String>> result = service.submit(() -> ResponseEntity.ok("image"));
+
+        assertEquals(ResponseEntity.ok("image"), await(result));
+    }
+
+    @Test
+    void passesTaskExceptionAsErrorResult() throws Exception {
+        IOException failure = new IOException("disk");
+        DeferredResult<ResponseEntity<String>> result = service.submit(() -> {
+            throw failure;
+        });
+
+        assertSame(failure, await(result));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        occupyWorker();
+        executor.execute(() -> { });
+
+        DeferredResult<ResponseEntity<String>> result = service.submit(() -> ResponseEntity.ok("image"));
+
+        assertUnavailable(result.getResult());
+        assertEquals(1, service.getStats().getRejected());
+    }
+
+    @Test
+    void cancelsQueuedTaskOnTimeout() throws Exception {
+        occupyWorker();
+        AtomicBoolean ran = new AtomicBoolean();
+        DeferredResult<ResponseEntity<String>> result = service.submitWrite(() -> {
+            ran.set(true);
+            return ResponseEntity.ok("saved");
+        });
+
+        assertUnavailable(timeOut(result));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertEquals(1, service.getStats().getTimedOut());
+    }
+
+    @Test
+    void runningReadTimesOutAsRetryable() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        DeferredResult<ResponseEntity<String>> result = service.submit(() -> {
+            started.countDown();
+            release.await();
+            return ResponseEntity.ok("image");
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertUnavailable(timeOut(result));
+    }
+
+    @Test
+    void runningWriteTimesOutWithoutRetryAfter() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        DeferredResult<ResponseEntity<String>> result = service.submitWrite(() -> {
+            started.countDown();
+            release.await();
+            return ResponseEntity.ok("saved");
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ResponseEntity<?> response = (ResponseEntity<?>) timeOut(result);
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    private void occupyWorker() {
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private Object await(DeferredResult<?> result) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!result.hasResult()) {
+            assertTrue(System.nanoTime() < deadline, "result not set");
+            Thread.sleep(1);
+        }
+        return result.getResult();
+    }
+
+    /**
+     * Метод, который запускает асинхронную обработку результата так же, как Spring MVC, и сообщает ей о таймауте
+     */
+    private Object timeOut(DeferredResult<?> result) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        asyncManager.startDeferredResultProcessing(result);
+
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        return asyncManager.getConcurrentResult();
+    }
+
+    private void assertUnavailable(Object result) {
+        ResponseEntity<?> response = (ResponseEntity<?>) result;
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+}
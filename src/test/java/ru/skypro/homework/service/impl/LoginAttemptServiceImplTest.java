@@ -0,0 +1,145 @@
+package ru.skypro.homework.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoginAttemptServiceImplTest {
+
+    @Test
+    void blocksAccountAfterFreeAttemptsWithDoublingDelay() {
+        LoginAttemptServiceImpl service = service(null, 2, 100, 100, false);
+
+        service.loginFailed("User@Mail.ru", "10.0.0.1");
+        service.loginFailed("user@mail.ru", "10.0.0.2");
+        assertEquals(0, service.getRetryAfter("user@mail.ru", "10.0.0.3"));
+
+        service.loginFailed("user@mail.ru", "10.0.0.3");
+        assertEquals(1, service.getRetryAfter("USER@mail.ru", "10.0.0.4"));
+        service.loginFailed("user@mail.ru", "10.0.0.4");
+        assertEquals(2, service.getRetryAfter("user@mail.ru", null));
+        service.loginFailed("user@mail.ru", "10.0.0.5");
+        service.loginFailed("user@mail.ru", "10.0.0.6");
+        assertEquals(4, service.getRetryAfter("user@mail.ru", null));
+        assertEquals(0, service.getRetryAfter("other@mail.ru", "10.0.0.1"));
+    }
+
+    @Test
+    void successResetsAccountButNotAddress() {
+        LoginAttemptServiceImpl service = service(null, 0, 1, 100, false);
+
+        service.loginFailed("user@mail.ru", "10.0.0.1");
+        service.loginFailed("user@mail.ru", "10.0.0.1");
+        service.loginSucceeded("user@mail.ru", "10.0.0.1");
+
+        assertEquals(0, service.getRetryAfter("user@mail.ru", "10.0.0.2"));
+        assertEquals(1, service.getRetryAfter("other@mail.ru", "10.0.0.1"));
+    }
+
+    @Test
+    void sweepForgetsExpiredKeys() throws InterruptedException {
+        LoginAttemptServiceImpl service = service(null, 1, 100, 100, false);
+
+        service.loginFailed("user@mail.ru", null);
+        Thread.sleep(5);
+        service.sweep();
+        service.loginFailed("user@mail.ru", null);
+
+        assertEquals(0, service.getRetryAfter("user@mail.ru", null));
+    }
+
+    @Test
+    void stopsTrackingNewKeysAtMaxKeys() {
+        LoginAttemptServiceImpl service = service(null, 0, 100, 1, false);
+
+        service.loginFailed("first@mail.ru", null);
+        service.loginFailed("second@mail.ru", null);
+
+        assertEquals(1, service.getRetryAfter("first@mail.ru", null));
+        assertEquals(0, service.getRetryAfter("second@mail.ru", null));
+    }
+
+    @Test
+    void knownEmailsFilterIsOffByDefault() {
+        LoginAttemptServiceImpl service = service(null, 5, 20, 100, false);
+
+        service.loadKnownEmails();
+
+        assertEquals(-1, service.refreshKnownEmails());
+        assertTrue(service.mayExist("anyone@mail.ru"));
+    }
+
+    @Test
+    void knownEmailsFilterRefreshesFromWatermarkAndDistrustsFailedRefresh() {
+        UsersTable users = new UsersTable();
+        LoginAttemptServiceImpl service = service(users, 5, 20, 100, true);
+        users.rows.put(5000L, "first@mail.ru");
+        users.rows.put(5001L, "second@mail.ru");
+        assertTrue(service.mayExist("unknown@mail.ru"));
+
+        service.loadKnownEmails();
+        assertTrue(service.mayExist("first@mail.ru"));
+        assertFalse(service.mayExist("unknown@mail.ru"));
+
+        users.rows.put(5002L, "third@mail.ru");
+        assertEquals(3, service.refreshKnownEmails());
+        assertEquals(List.of(0L, 4001L), users.fromIds);
+        assertTrue(service.mayExist("third@mail.ru"));
+
+        users.failing = true;
+        assertEquals(-1, service.refreshKnownEmails());
+        assertTrue(service.mayExist("unknown@mail.ru"));
+    }
+
+    private LoginAttemptServiceImpl service(JdbcTemplate jdbcTemplate, int accountFreeAttempts,
+                                            int addressFreeAttempts, int maxKeys, boolean knownEmailsEnabled) {
+        return new LoginAttemptServiceImpl(jdbcTemplate, accountFreeAttempts, addressFreeAttempts,
+                1000, 4000, 0, maxKeys, knownEmailsEnabled, 1000, 0.000001);
+    }
+
+    /**
+     * Таблица users в памяти: отдает строки с id больше переданного по возрастанию id
+     */
+    private static class UsersTable extends JdbcTemplate {
+
+        private final Map<Long, String> rows = new LinkedHashMap<>();
+        private final List<Long> fromIds = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            if (failing) {
+                throw new DataAccessResourceFailureException("database is down");
+            }
+            long fromId = (Long) args[0];
+            fromIds.add(fromId);
+            rows.forEach((id, email) -> {
+                if (id > fromId) {
+                    try {
+                        ResultSet rs = mock(ResultSet.class);
+                        when(rs.getLong(1)).thenReturn(id);
+                        when(rs.getString(2)).thenReturn(email);
+                        rch.processRow(rs);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+    }
+
+}
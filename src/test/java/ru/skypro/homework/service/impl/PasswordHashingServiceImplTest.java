@@ -0,0 +1,89 @@
+package ru.skypro.homework.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import ru.skypro.homework.dto.PasswordHashingStatsDto;
+import ru.skypro.homework.exception.PasswordHashingRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingServiceImplTest {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void hashesAndVerifiesInPool() {
+        PasswordHashingServiceImpl service = service(5000);
+
+        String hash = service.encode("password");
+
+        assertTrue(service.matches("password", hash));
+        assertFalse(service.matches("wrong", hash));
+        PasswordHashingStatsDto stats = service.getStats();
+        assertEquals(3, stats.getCompleted());
+        assertEquals(0, stats.getRejected());
+    }
+
+    @Test
+    void upgradesHashesWithOtherStrength() {
+        PasswordHashingServiceImpl service = service(5000);
+
+        assertFalse(service.upgradeEncoding(service.encode("password")));
+        assertTrue(service.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password")));
+        assertFalse(service.upgradeEncoding("plain"));
+        assertFalse(service.upgradeEncoding("$2a$"));
+        assertFalse(service.upgradeEncoding(null));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        PasswordHashingServiceImpl service = service(5000);
+        executor.execute(this::awaitRelease);
+        executor.execute(() -> { });
+
+        assertThrows(PasswordHashingRejectedException.class, () -> service.encode("password"));
+        assertEquals(1, service.getStats().getRejected());
+    }
+
+    @Test
+    void rejectsWhenTaskDoesNotFinishInTime() {
+        PasswordHashingServiceImpl service = service(50);
+        executor.execute(this::awaitRelease);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> service.matches("password", "$2a$04$x"));
+        PasswordHashingStatsDto stats = service.getStats();
+        assertEquals(1, stats.getRejected());
+        assertEquals(0, stats.getQueued());
+    }
+
+    private PasswordHashingServiceImpl service(long timeout) {
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        return new PasswordHashingServiceImpl(executor, 4, 1, timeout, 250);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
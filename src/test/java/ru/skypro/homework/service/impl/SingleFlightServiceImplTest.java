@@ -0,0 +1,142 @@
+package ru.skypro.homework.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.skypro.homework.dto.SingleFlightStatsDto;
+import ru.skypro.homework.exception.SingleFlightTimeoutException;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightServiceImplTest {
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void waitersShareLeaderResult() throws Exception {
+        SingleFlightServiceImpl service = new SingleFlightServiceImpl(5000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Object value = new Object();
+
+        Future<Object> leader = threads.submit(() -> service.execute("ad", 1, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return value;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<Object> waiter = threads.submit(() -> service.execute("ad", 1, () -> {
+            loads.incrementAndGet();
+            return new Object();
+        }));
+        awaitCondition(() -> stats(service).getCoalesced() == 1);
+        release.countDown();
+
+        assertSame(value, leader.get(5, TimeUnit.SECONDS));
+        assertSame(value, waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        SingleFlightStatsDto stats = stats(service);
+        assertEquals(2, stats.getRequests());
+        assertEquals(1, stats.getExecutions());
+        assertEquals(0, stats.getInFlight());
+    }
+
+    @Test
+    void waitersGetLeaderExceptionUnwrapped() throws Exception {
+        SingleFlightServiceImpl service = new SingleFlightServiceImpl(5000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IOException failure = new IOException("disk");
+
+        Future<Object> leader = threads.submit(() -> service.<Object, IOException>execute("image", "a.png", () -> {
+            loading.countDown();
+            awaitQuietly(release);
+            throw failure;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<Object> waiter = threads.submit(() -> service.<Object, IOException>execute("image", "a.png", Object::new));
+        awaitCondition(() -> stats(service).getCoalesced() == 1);
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(1, stats(service).getFailed());
+    }
+
+    @Test
+    void waiterTimesOutWithoutCancellingLeader() throws Exception {
+        SingleFlightServiceImpl service = new SingleFlightServiceImpl(50);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = threads.submit(() -> service.execute("ad", 1, () -> {
+            loading.countDown();
+            release.await();
+            return "ad";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        assertThrows(SingleFlightTimeoutException.class, () -> service.execute("ad", 1, () -> "other"));
+        release.countDown();
+        assertEquals("ad", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, stats(service).getTimedOut());
+    }
+
+    @Test
+    void doesNotCacheCompletedReads() {
+        SingleFlightServiceImpl service = new SingleFlightServiceImpl(5000);
+
+        Object first = service.execute("ad", 1, Object::new);
+        Object second = service.execute("ad", 1, Object::new);
+        Object withoutArgument = service.execute("ad", null, Object::new);
+
+        assertNotSame(first, second);
+        assertNotSame(second, withoutArgument);
+        SingleFlightStatsDto stats = stats(service);
+        assertEquals(3, stats.getExecutions());
+        assertEquals(0, stats.getCoalesced());
+    }
+
+    private SingleFlightStatsDto stats(SingleFlightServiceImpl service) {
+        return service.getStats().stream()
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached");
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
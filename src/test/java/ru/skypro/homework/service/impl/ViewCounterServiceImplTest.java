@@ -0,0 +1,130 @@
+package ru.skypro.homework.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ViewCounterServiceImplTest {
+
+    private final AdsTable ads = new AdsTable();
+
+    @Test
+    void flushWritesPendingViewsAndEvictsIdleCounters() {
+        ViewCounterServiceImpl service = new ViewCounterServiceImpl(ads, new InlineExecutor(), 100);
+        service.registerView(1);
+        service.registerView(1);
+        service.registerView(2);
+        assertEquals(2, service.getPendingViews(1));
+
+        service.flush();
+        assertEquals(Map.of(1, 2L, 2, 1L), ads.views);
+        assertEquals(0, service.getPendingViews(1));
+        assertEquals(1, ads.batches.get());
+
+        service.flush();
+        service.flush();
+        assertEquals(1, ads.batches.get());
+    }
+
+    @Test
+    void failedFlushKeepsViewsForRetry() {
+        ViewCounterServiceImpl service = new ViewCounterServiceImpl(ads, new InlineExecutor(), 100);
+        service.registerView(1);
+        ads.failing = true;
+
+        service.flush();
+        service.registerView(1);
+        assertEquals(2, service.getPendingViews(1));
+
+        ads.failing = false;
+        service.flush();
+        assertEquals(Map.of(1, 2L), ads.views);
+    }
+
+    @Test
+    void flushesEarlyWhenTooManyAdsAreTracked() {
+        ViewCounterServiceImpl service = new ViewCounterServiceImpl(ads, new InlineExecutor(), 2);
+        service.registerView(1);
+        service.registerView(2);
+        service.registerView(3);
+
+        assertEquals(Map.of(1, 1L, 2, 1L), ads.views);
+        assertEquals(1, service.getPendingViews(3));
+    }
+
+    @Test
+    void doesNotLoseViewsWhileCountersAreEvicted() throws InterruptedException {
+        ViewCounterServiceImpl service = new ViewCounterServiceImpl(ads, new InlineExecutor(), 1);
+        int threads = 8;
+        int viewsPerThread = 20_000;
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                service.flush();
+            }
+        });
+        flusher.start();
+
+        Thread[] viewers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            viewers[t] = new Thread(() -> {
+                for (int i = 0; i < viewsPerThread; i++) {
+                    service.registerView(i % 3);
+                }
+            });
+            viewers[t].start();
+        }
+        for (Thread viewer : viewers) {
+            viewer.join();
+        }
+        running.set(false);
+        flusher.join();
+        service.flush();
+
+        long written = ads.views.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals((long) threads * viewsPerThread, written);
+        assertTrue(ads.batches.get() > 1);
+    }
+
+    /**
+     * Таблица ads в памяти, которая суммирует пакетные обновления просмотров
+     */
+    private static class AdsTable extends JdbcTemplate {
+
+        private final Map<Integer, Long> views = new ConcurrentHashMap<>();
+        private final AtomicInteger batches = new AtomicInteger();
+        private volatile boolean failing;
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (failing) {
+                throw new DataAccessResourceFailureException("database is down");
+            }
+            batches.incrementAndGet();
+            batchArgs.forEach(args -> views.merge((Integer) args[1], (Long) args[0], Long::sum));
+            return new int[batchArgs.size()];
+        }
+    }
+
+    /**
+     * Пул, который выполняет досрочную запись в вызывающем потоке
+     */
+    private static class InlineExecutor extends ThreadPoolTaskExecutor {
+
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    }
+
+}
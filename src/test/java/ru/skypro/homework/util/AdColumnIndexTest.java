@@ -0,0 +1,80 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdColumnIndexTest {
+
+    @Test
+    void filtersByAuthorImageAndPriceRange() {
+        AdColumnIndex index = new AdColumnIndex();
+        index.put(1, 100, 10, true);
+        index.put(2, 200, 10, false);
+        index.put(3, 300, 20, true);
+        index.put(4, null, 10, true);
+
+        assertArrayEquals(new int[]{1, 2, 4}, index.filter(null, null, 10, null, AdColumnIndex.Sort.ID, 0, 10).getIds());
+        assertArrayEquals(new int[]{1, 3}, index.filter(100, 300, null, true, AdColumnIndex.Sort.ID, 0, 10).getIds());
+        assertArrayEquals(new int[]{3, 2}, index.filter(150, null, null, null, AdColumnIndex.Sort.PRICE_DESC, 0, 10).getIds());
+        assertArrayEquals(new int[]{1, 2, 3}, index.filter(null, null, null, null, AdColumnIndex.Sort.PRICE_ASC, 0, 10).getIds());
+    }
+
+    @Test
+    void updatesPriceAndRemovesAds() {
+        AdColumnIndex index = new AdColumnIndex();
+        index.put(1, 100, 10, false);
+        index.put(2, 200, 10, false);
+        index.put(1, 300, 10, false);
+        index.remove(2);
+
+        AdColumnIndex.Page page = index.filter(null, null, null, null, AdColumnIndex.Sort.PRICE_ASC, 0, 10);
+        assertEquals(1, page.getTotal());
+        assertArrayEquals(new int[]{1}, page.getIds());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void matchesBruteForceAcrossBlockSplitsAndRemovals() {
+        AdColumnIndex index = new AdColumnIndex();
+        Map<Integer, Integer> prices = new HashMap<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 20_000; step++) {
+            int id = random.nextInt(5_000);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                prices.remove(id);
+            } else {
+                int price = random.nextInt(1_000);
+                index.put(id, price, 1, false);
+                prices.put(id, price);
+            }
+        }
+
+        for (int query = 0; query < 200; query++) {
+            int min = random.nextInt(1_000);
+            int max = min + random.nextInt(300);
+            int offset = random.nextInt(50);
+            boolean descending = random.nextBoolean();
+            Comparator<Integer> order = Comparator.comparingLong(id -> ((long) prices.get(id) << 32) | id);
+            int[] expected = prices.keySet().stream()
+                    .filter(id -> prices.get(id) >= min && prices.get(id) <= max)
+                    .sorted(descending ? order.reversed() : order)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            AdColumnIndex.Page page = index.filter(min, max, null, null,
+                    descending ? AdColumnIndex.Sort.PRICE_DESC : AdColumnIndex.Sort.PRICE_ASC, offset, 20);
+            assertEquals(expected.length, page.getTotal());
+            assertArrayEquals(IntStream.of(expected).skip(offset).limit(20).toArray(), page.getIds());
+        }
+    }
+
+}
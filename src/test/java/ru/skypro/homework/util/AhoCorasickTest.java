@@ -0,0 +1,72 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AhoCorasickTest {
+
+    @Test
+    void findsOverlappingAndNestedMatches() {
+        AhoCorasick automaton = new AhoCorasick(List.of("he", "she", "his", "hers"));
+
+        List<String> found = new ArrayList<>();
+        for (AhoCorasick.Match match : automaton.findAll("ushers")) {
+            found.add(match.getPattern() + ":" + match.getStart() + "-" + match.getEnd());
+        }
+
+        assertEquals(List.of("1:1-4", "0:2-4", "3:2-6"), found);
+    }
+
+    @Test
+    void findsNothingWithoutPatterns() {
+        assertTrue(new AhoCorasick(List.of()).findAll("любой текст").isEmpty());
+    }
+
+    @Test
+    void matchesBruteForceSearch() {
+        Random random = new Random(13);
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            patterns.add(randomText(random, 1 + random.nextInt(4)));
+        }
+        AhoCorasick automaton = new AhoCorasick(patterns);
+
+        for (int t = 0; t < 100; t++) {
+            String text = randomText(random, random.nextInt(60));
+            Set<String> expected = new HashSet<>();
+            for (int p = 0; p < patterns.size(); p++) {
+                String pattern = patterns.get(p);
+                for (int start = text.indexOf(pattern); start >= 0; start = text.indexOf(pattern, start + 1)) {
+                    if (patterns.indexOf(pattern) == p) {
+                        expected.add(pattern + ":" + start);
+                    }
+                }
+            }
+
+            Set<String> found = new HashSet<>();
+            for (AhoCorasick.Match match : automaton.findAll(text)) {
+                String pattern = patterns.get(match.getPattern());
+                assertEquals(pattern, text.substring(match.getStart(), match.getEnd()));
+                found.add(pattern + ":" + match.getStart());
+            }
+            assertEquals(expected, found);
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append("abc".charAt(random.nextInt(3)));
+        }
+        return text.toString();
+    }
+
+}
@@ -0,0 +1,68 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BkTreeTest {
+
+    @Test
+    void findsValueWithinRadius() {
+        BkTree tree = new BkTree();
+        tree.add(0b1111L, "a.png");
+        tree.add(0xFFFF_0000L, "b.png");
+
+        assertEquals("a.png", tree.findWithin(0b0111L, 1));
+        assertNull(tree.findWithin(0b0000L, 3));
+        assertEquals("a.png", tree.findWithin(0b0000L, 4));
+    }
+
+    @Test
+    void skipsRemovedValues() {
+        BkTree tree = new BkTree();
+        tree.add(42L, "a.png");
+        tree.add(42L, "b.png");
+
+        tree.remove(42L, "a.png");
+        assertEquals("b.png", tree.findWithin(42L, 0));
+        tree.remove(42L, "b.png");
+        assertNull(tree.findWithin(42L, 0));
+    }
+
+    @Test
+    void matchesBruteForceRadiusSearch() {
+        BkTree tree = new BkTree();
+        Map<String, Long> hashes = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            long hash = random.nextLong();
+            hashes.put(i + ".png", hash);
+            tree.add(hash, i + ".png");
+        }
+        for (int i = 0; i < 500; i += 2) {
+            tree.remove(hashes.get(i + ".png"), i + ".png");
+            hashes.remove(i + ".png");
+        }
+
+        for (int query = 0; query < 500; query++) {
+            long base = hashes.getOrDefault(random.nextInt(2000) + ".png", random.nextLong());
+            long hash = base ^ (1L << random.nextInt(64)) ^ (1L << random.nextInt(64));
+            int maxDistance = random.nextInt(20);
+            boolean expected = hashes.values().stream()
+                    .anyMatch(other -> PerceptualHash.distance(hash, other) <= maxDistance);
+
+            String found = tree.findWithin(hash, maxDistance);
+            assertEquals(expected, found != null);
+            if (found != null) {
+                assertTrue(PerceptualHash.distance(hash, hashes.get(found)) <= maxDistance);
+            }
+        }
+    }
+
+}
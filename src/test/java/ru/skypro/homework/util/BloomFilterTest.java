@@ -0,0 +1,66 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void hasNoFalseNegativesAndBoundedFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("user" + i + "@gmail.com");
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@gmail.com"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i + "@mail.ru")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives <= 1_500, "false positives " + falsePositives);
+    }
+
+    @Test
+    void sizesBitsForRequestedRate() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        assertTrue(filter.bitSize() >= 9_585_059 && filter.bitSize() < 9_585_059 + 64);
+        assertFalse(new BloomFilter(0, 0.01).mightContain("anything"));
+    }
+
+    @Test
+    void keepsConcurrentlyAddedValues() throws Exception {
+        BloomFilter filter = new BloomFilter(80_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int offset = thread * 10_000;
+            futures.add(executor.submit(() -> {
+                for (int i = offset; i < offset + 10_000; i++) {
+                    filter.add("login" + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (int i = 0; i < 80_000; i++) {
+            assertTrue(filter.mightContain("login" + i));
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GcraRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsBurstThenReportsRetryAfter() {
+        GcraRateLimiter limiter = new GcraRateLimiter(1, 5, 100);
+        long now = 42 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("user", now));
+        }
+        assertEquals(SECOND, limiter.tryAcquire("user", now));
+        assertEquals(SECOND / 2, limiter.tryAcquire("user", now + SECOND / 2));
+        assertEquals(0, limiter.tryAcquire("user", now + SECOND));
+    }
+
+    @Test
+    void sustainsConfiguredRate() {
+        GcraRateLimiter limiter = new GcraRateLimiter(10, 1, 100);
+        long now = 0;
+        int allowed = 0;
+        for (int i = 0; i < 1000; i++) {
+            now += SECOND / 100;
+            if (limiter.tryAcquire("user", now) == 0) {
+                allowed++;
+            }
+        }
+
+        assertTrue(allowed >= 99 && allowed <= 102, "allowed " + allowed);
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        GcraRateLimiter limiter = new GcraRateLimiter(1, 1, 100);
+
+        assertEquals(0, limiter.tryAcquire("first", 0));
+        assertTrue(limiter.tryAcquire("first", 0) > 0);
+        assertEquals(0, limiter.tryAcquire("second", 0));
+    }
+
+    @Test
+    void floodOfUntrackedKeysDoesNotThrottleOtherNewKeys() {
+        GcraRateLimiter limiter = new GcraRateLimiter(1, 1, 1);
+        limiter.tryAcquire("tracked", 0);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("attacker", 0);
+        }
+
+        int allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.tryAcquire("user-" + i, 0) == 0) {
+                allowed++;
+            }
+        }
+
+        assertTrue(limiter.tryAcquire("attacker", 0) > 0);
+        assertTrue(allowed >= 95, "allowed " + allowed);
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void sweepRemovesRecoveredKeys() {
+        GcraRateLimiter limiter = new GcraRateLimiter(1, 5, 100);
+        limiter.tryAcquire("idle", 0);
+        limiter.tryAcquire("busy", 0);
+        limiter.tryAcquire("busy", 0);
+
+        limiter.sweep(SECOND);
+
+        assertEquals(1, limiter.size());
+    }
+
+}
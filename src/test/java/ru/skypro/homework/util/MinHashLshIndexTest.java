@@ -0,0 +1,94 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinHashLshIndexTest {
+
+    private final MinHashLshIndex index = new MinHashLshIndex(32, 8, 1000);
+
+    @Test
+    void findsNearDuplicateBeforeUnrelatedText() {
+        index.put(1, index.signature("Продам горный велосипед Stels, рама 18 дюймов, почти новый"));
+        index.put(2, index.signature("Продам горный велосипед Stels, рама 18 дюймов, как новый"));
+        index.put(3, index.signature("Сдается квартира в центре города на длительный срок"));
+
+        List<Integer> similar = index.query(index.getSignature(1), 1, 10, 1000);
+
+        assertEquals(List.of(2), similar);
+    }
+
+    @Test
+    void excludesQueriedDocumentAndRespectsLimit() {
+        int[] signature = index.signature("одинаковый текст объявления");
+        for (int id = 1; id <= 5; id++) {
+            index.put(id, signature);
+        }
+
+        List<Integer> similar = index.query(signature, 3, 2, 1000);
+
+        assertEquals(2, similar.size());
+        assertFalse(similar.contains(3));
+    }
+
+    @Test
+    void replacesAndRemovesDocuments() {
+        int[] bike = index.signature("детский велосипед с боковыми колесами");
+        int[] sofa = index.signature("угловой диван с ящиком для белья");
+        index.put(1, bike);
+        index.put(2, bike);
+
+        index.put(2, sofa);
+        assertTrue(index.query(bike, 1, 10, 1000).isEmpty());
+        assertFalse(index.putIfAbsent(2, bike));
+
+        index.remove(2);
+        assertTrue(index.query(sofa, -1, 10, 1000).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void keepsBucketsConsistentUnderConcurrentUpdates() throws Exception {
+        int[] shared = index.signature("общий текст для всех документов");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int offset = thread * 1000;
+            futures.add(executor.submit(() -> {
+                for (int id = offset; id < offset + 1000; id++) {
+                    index.put(id, shared);
+                    if (id % 2 == 0) {
+                        index.remove(id);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Integer> found = index.query(shared, -1, 10_000, 10_000);
+        assertEquals(4000, index.size());
+        assertEquals(4000, found.size());
+        assertTrue(found.stream().allMatch(id -> id % 2 == 1));
+    }
+
+    @Test
+    void rejectsBandsThatDoNotDivideHashes() {
+        assertThrows(IllegalArgumentException.class, () -> new MinHashLshIndex(30, 8, 1000));
+    }
+
+}
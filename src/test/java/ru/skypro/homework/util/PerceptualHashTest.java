@@ -0,0 +1,86 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerceptualHashTest {
+
+    @Test
+    void nearIdenticalImagesHaveCloseHashes() throws IOException {
+        Long original = PerceptualHash.dHash(png(gradient(640, 480, 0)), Long.MAX_VALUE);
+        Long brighter = PerceptualHash.dHash(png(gradient(640, 480, 20)), Long.MAX_VALUE);
+        Long resized = PerceptualHash.dHash(png(gradient(320, 240, 0)), Long.MAX_VALUE);
+        Long different = PerceptualHash.dHash(png(checkerboard(640, 480)), Long.MAX_VALUE);
+
+        assertTrue(PerceptualHash.distance(original, brighter) <= 4);
+        assertTrue(PerceptualHash.distance(original, resized) <= 4);
+        assertTrue(PerceptualHash.distance(original, different) > 10);
+    }
+
+    @Test
+    void subsamplesImagesOverPixelBudget() throws IOException {
+        byte[] image = png(gradient(2000, 1500, 0));
+
+        Long full = PerceptualHash.dHash(image, Long.MAX_VALUE);
+        Long subsampled = PerceptualHash.dHash(image, 10_000);
+
+        assertNotNull(subsampled);
+        assertTrue(PerceptualHash.distance(full, subsampled) <= 4);
+    }
+
+    @Test
+    void returnsNullForUnsupportedData() throws IOException {
+        assertNull(PerceptualHash.dHash(new byte[]{1, 2, 3, 4}, Long.MAX_VALUE));
+    }
+
+    @Test
+    void distanceCountsDifferentBits() {
+        assertEquals(0, PerceptualHash.distance(5L, 5L));
+        assertEquals(64, PerceptualHash.distance(0L, -1L));
+        assertEquals(2, PerceptualHash.distance(0b1010L, 0b0000L));
+    }
+
+    /**
+     * Изображение с диагональным градиентом и светлым пятном, чтобы хеш не был вырожденным
+     */
+    private static BufferedImage gradient(int width, int height, int brightness) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int grey = (int) (200.0 * (x * y) / ((double) width * height));
+                if (Math.hypot(x - width / 3.0, y - height / 2.0) < height / 5.0) {
+                    grey = 230;
+                }
+                grey = Math.min(255, grey + brightness);
+                image.setRGB(x, y, grey << 16 | grey << 8 | grey);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage checkerboard(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, ((x / 71 + y / 53) % 2 == 0) ? 0xFFFFFF : 0);
+            }
+        }
+        return image;
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+}
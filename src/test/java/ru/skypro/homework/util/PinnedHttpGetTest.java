@@ -0,0 +1,75 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PinnedHttpGetTest {
+
+    @Test
+    void connectsToGivenAddressAndSendsOriginalHost() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<List<String>> request = serve(server,
+                    "HTTP/1.1 200 OK\r\nContent-Type: image/png\r\nContent-Length: 3\r\n\r\nabcdef");
+            URL url = new URL("http://images.example.invalid:" + server.getLocalPort() + "/a/b.png?x=1");
+
+            try (PinnedHttpGet response = PinnedHttpGet.open(url, InetAddress.getLoopbackAddress(), 5000)) {
+                assertEquals(200, response.getStatus());
+                assertEquals("image/png", response.getHeader("content-type"));
+                assertArrayEquals("abc".getBytes(StandardCharsets.US_ASCII), response.readBody(100));
+            }
+
+            List<String> lines = request.get();
+            assertEquals("GET /a/b.png?x=1 HTTP/1.0", lines.get(0));
+            assertTrue(lines.contains("Host: images.example.invalid:" + server.getLocalPort()));
+        }
+    }
+
+    @Test
+    void readsBodyUntilCloseAndStopsAtLimit() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            serve(server, "HTTP/1.0 302 Found\nLocation: /next\n\n0123456789");
+            URL url = new URL("http://localhost:" + server.getLocalPort() + "/");
+
+            try (PinnedHttpGet response = PinnedHttpGet.open(url, InetAddress.getLoopbackAddress(), 5000)) {
+                assertEquals(302, response.getStatus());
+                assertEquals("/next", response.getHeader("Location"));
+                assertArrayEquals("01234".getBytes(StandardCharsets.US_ASCII), response.readBody(5));
+            }
+        }
+    }
+
+    private CompletableFuture<List<String>> serve(ServerSocket server, String response) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Socket socket = server.accept()) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+                List<String> lines = new ArrayList<>();
+                for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+                    lines.add(line);
+                }
+                OutputStream out = socket.getOutputStream();
+                out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+                return lines;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+}
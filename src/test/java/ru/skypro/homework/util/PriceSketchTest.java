@@ -0,0 +1,121 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceSketchTest {
+
+    private static final double ACCURACY = 0.01;
+    private static final double[] QUANTILES = {0, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+    @Test
+    void quantilesStayWithinRelativeAccuracy() {
+        PriceSketch sketch = new PriceSketch(ACCURACY);
+        List<Integer> prices = randomPrices(new Random(3), 50_000);
+        prices.forEach(sketch::add);
+
+        assertQuantiles(sketch, prices);
+        assertEquals(prices.size(), sketch.getCount());
+        assertEquals(prices.stream().mapToLong(Integer::longValue).sum(), sketch.getSum());
+    }
+
+    @Test
+    void quantilesStayWithinRelativeAccuracyAfterRemovals() {
+        PriceSketch sketch = new PriceSketch(ACCURACY);
+        List<Integer> prices = randomPrices(new Random(5), 20_000);
+        prices.forEach(sketch::add);
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = 0; i < prices.size(); i++) {
+            if (i % 3 == 0) {
+                sketch.remove(prices.get(i));
+            } else {
+                remaining.add(prices.get(i));
+            }
+        }
+
+        assertQuantiles(sketch, remaining);
+    }
+
+    @Test
+    void countsNonPositivePricesInZeroBucket() {
+        PriceSketch sketch = new PriceSketch(ACCURACY);
+        sketch.add(0);
+        sketch.add(0);
+        sketch.add(1000);
+
+        assertEquals(0L, sketch.quantile(0.5));
+        assertTrue(Math.abs(sketch.quantile(1) - 1000) <= 1000 * ACCURACY);
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        PriceSketch sketch = new PriceSketch(ACCURACY);
+        sketch.add(500);
+        sketch.remove(500);
+        sketch.remove(700);
+
+        assertTrue(sketch.isEmpty());
+        assertNull(sketch.quantile(0.5));
+    }
+
+    @Test
+    void histogramCountsPowerOfTwoBuckets() {
+        PriceSketch sketch = new PriceSketch(ACCURACY);
+        sketch.add(1);
+        sketch.add(2);
+        sketch.add(3);
+        sketch.add(1024);
+
+        long[] histogram = sketch.getHistogram();
+        assertEquals(1, histogram[0]);
+        assertEquals(2, histogram[1]);
+        assertEquals(1, histogram[10]);
+    }
+
+    @Test
+    void decodesEncodedSketch() {
+        PriceSketch sketch = new PriceSketch(ACCURACY);
+        randomPrices(new Random(9), 1000).forEach(sketch::add);
+
+        PriceSketch decoded = PriceSketch.decode(sketch.encode(), ACCURACY);
+
+        assertEquals(sketch.getCount(), decoded.getCount());
+        assertEquals(sketch.getSum(), decoded.getSum());
+        assertArrayEquals(sketch.getHistogram(), decoded.getHistogram());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), decoded.quantile(q));
+        }
+    }
+
+    /**
+     * Логнормальные цены от единиц до миллионов
+     */
+    private static List<Integer> randomPrices(Random random, int count) {
+        List<Integer> prices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            prices.add((int) Math.max(1, Math.round(Math.exp(8 + 2.5 * random.nextGaussian()))));
+        }
+        return prices;
+    }
+
+    private static void assertQuantiles(PriceSketch sketch, List<Integer> prices) {
+        int[] sorted = prices.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            long exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+            long estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= exact * ACCURACY + 1,
+                    "q=" + q + " exact=" + exact + " estimate=" + estimate);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestTrieTest {
+
+    @Test
+    void completesPrefixByWeight() {
+        SuggestTrie trie = new SuggestTrie(100);
+        add(trie, "велосипед", 3);
+        add(trie, "велюр", 5);
+        add(trie, "ведро", 10);
+
+        assertEquals(List.of("велюр", "велосипед"), trie.complete("вел", 0, 10));
+        assertEquals(List.of("велюр"), trie.complete("вел", 0, 1));
+    }
+
+    @Test
+    void toleratesTyposWithinMaxEdits() {
+        SuggestTrie trie = new SuggestTrie(100);
+        add(trie, "велосипед", 1);
+
+        assertTrue(trie.complete("велсипед", 0, 10).isEmpty());
+        assertEquals(List.of("велосипед"), trie.complete("велсипед", 1, 10));
+        assertEquals(List.of("велосипед"), trie.complete("вилосепед", 2, 10));
+    }
+
+    @Test
+    void returnsFewerEditsFirst() {
+        SuggestTrie trie = new SuggestTrie(100);
+        add(trie, "кот", 1);
+        add(trie, "кит", 5);
+
+        assertEquals(List.of("кот", "кит"), trie.complete("кот", 1, 10));
+    }
+
+    @Test
+    void removesWordsAndLimitsWordCount() {
+        SuggestTrie trie = new SuggestTrie(2);
+        assertTrue(trie.increment("стол"));
+        assertTrue(trie.increment("стул"));
+        assertFalse(trie.increment("шкаф"));
+
+        trie.decrement("стол");
+        assertEquals(List.of("стул"), trie.complete("ст", 0, 10));
+        assertTrue(trie.increment("шкаф"));
+        assertEquals(2, trie.size());
+    }
+
+    @Test
+    void matchesBruteForceEditDistanceSearch() {
+        SuggestTrie trie = new SuggestTrie(10_000);
+        Set<String> words = new HashSet<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            String word = randomWord(random, 3 + random.nextInt(5));
+            words.add(word);
+            trie.increment(word);
+        }
+
+        for (int query = 0; query < 200; query++) {
+            String prefix = randomWord(random, 1 + random.nextInt(4));
+            int maxEdits = random.nextInt(3);
+            Set<String> expected = words.stream()
+                    .filter(word -> matchesPrefix(word, prefix, maxEdits))
+                    .collect(Collectors.toSet());
+
+            List<String> found = trie.complete(prefix, maxEdits, 10_000);
+            assertEquals(found.size(), new HashSet<>(found).size());
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+
+    private static void add(SuggestTrie trie, String word, int weight) {
+        for (int i = 0; i < weight; i++) {
+            trie.increment(word);
+        }
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append("абвгд".charAt(random.nextInt(5)));
+        }
+        return word.toString();
+    }
+
+    /**
+     * Есть ли у слова префикс на расстоянии Левенштейна не больше maxEdits от prefix
+     */
+    private static boolean matchesPrefix(String word, String prefix, int maxEdits) {
+        for (int end = 0; end <= word.length(); end++) {
+            if (levenshtein(word.substring(0, end), prefix) <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int[] current = new int[b.length() + 1];
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            previous = current;
+        }
+        return previous[b.length()];
+    }
+
+}
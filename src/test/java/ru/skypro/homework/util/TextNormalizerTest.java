@@ -0,0 +1,54 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextNormalizerTest {
+
+    @Test
+    void foldsLookalikesToSameText() {
+        for (String text : List.of("Спам", "спaм", "SPAM", "$п@м", "ＳＰＡＭ", "s​pám")) {
+            assertEquals("spam", TextNormalizer.normalize(text).getText(), text);
+        }
+    }
+
+    @Test
+    void mapsExpandedAndRemovedCharactersToOrigins() {
+        TextNormalizer.Normalized normalized = TextNormalizer.normalize("Щу​ка");
+
+        assertEquals("schuka", normalized.getText());
+        int[] origins = new int[normalized.getText().length()];
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = normalized.originOf(i);
+        }
+        assertEquals(List.of(0, 0, 0, 1, 3, 4), List.of(origins[0], origins[1], origins[2], origins[3], origins[4], origins[5]));
+    }
+
+    @Test
+    void masksMatchesAtOriginalOffsets() {
+        AhoCorasick automaton = new AhoCorasick(List.of(TextNormalizer.normalize("жулик").getText()));
+        String text = "Продавец – Ж у л и к, не покупайте";
+        String compact = "Продавец – Жу​лик!";
+
+        assertEquals("Продавец – ******!", mask(automaton, compact));
+        assertEquals(text, mask(automaton, text));
+    }
+
+    /**
+     * Маскирует вхождения так же, как сервис модерации: по индексам исходных символов первого и последнего символа
+     */
+    private static String mask(AhoCorasick automaton, String text) {
+        TextNormalizer.Normalized normalized = TextNormalizer.normalize(text);
+        char[] masked = text.toCharArray();
+        for (AhoCorasick.Match match : automaton.findAll(normalized.getText())) {
+            for (int i = normalized.originOf(match.getStart()); i <= normalized.originOf(match.getEnd() - 1); i++) {
+                masked[i] = '*';
+            }
+        }
+        return new String(masked);
+    }
+
+}
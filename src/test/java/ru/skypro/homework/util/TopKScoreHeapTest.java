@@ -0,0 +1,118 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopKScoreHeapTest {
+
+    @Test
+    void evictsMinimumOnlyForHigherScore() {
+        TopKScoreHeap heap = new TopKScoreHeap(3);
+        heap.add(1, 5);
+        heap.add(2, 3);
+        heap.add(3, 8);
+
+        heap.add(4, 2);
+        assertArrayEquals(new int[]{3, 1, 2}, heap.sortedKeys());
+
+        heap.add(5, 4);
+        assertArrayEquals(new int[]{3, 1, 5}, heap.sortedKeys());
+    }
+
+    @Test
+    void increasesScoreOfPresentKey() {
+        TopKScoreHeap heap = new TopKScoreHeap(3);
+        heap.add(1, 5);
+        heap.add(2, 3);
+        heap.add(3, 8);
+
+        heap.add(2, 10);
+
+        assertArrayEquals(new int[]{2, 3, 1}, heap.sortedKeys());
+    }
+
+    @Test
+    void rescaleKeepsOrderAndScalesScores() {
+        TopKScoreHeap heap = new TopKScoreHeap(4);
+        heap.add(1, 100);
+        heap.add(2, 50);
+        heap.add(3, 10);
+
+        heap.rescale(0.5);
+        heap.add(3, 30);
+
+        Map<Integer, Double> scores = new HashMap<>();
+        heap.forEach(scores::put);
+        assertEquals(Map.of(1, 50.0, 2, 25.0, 3, 35.0), scores);
+        assertArrayEquals(new int[]{1, 3, 2}, heap.sortedKeys());
+    }
+
+    @Test
+    void removesKeysAndClears() {
+        TopKScoreHeap heap = new TopKScoreHeap(3);
+        heap.add(1, 5);
+        heap.add(2, 3);
+        heap.add(3, 8);
+
+        heap.remove(2);
+        heap.remove(42);
+        heap.add(4, 1);
+        assertArrayEquals(new int[]{3, 1, 4}, heap.sortedKeys());
+
+        heap.clear();
+        assertEquals(0, heap.size());
+        heap.add(5, 1);
+        assertArrayEquals(new int[]{5}, heap.sortedKeys());
+    }
+
+    @Test
+    void matchesBruteForceAfterRandomOperations() {
+        TopKScoreHeap heap = new TopKScoreHeap(50);
+        Map<Integer, Double> expected = new HashMap<>();
+        Random random = new Random(17);
+        for (int step = 0; step < 20_000; step++) {
+            int key = random.nextInt(200);
+            int operation = random.nextInt(10);
+            if (operation == 0) {
+                heap.remove(key);
+                expected.remove(key);
+            } else if (operation == 1) {
+                heap.rescale(0.9);
+                expected.replaceAll((k, score) -> score * 0.9);
+            } else {
+                double delta = random.nextInt(1000) + random.nextDouble();
+                heap.add(key, delta);
+                if (expected.containsKey(key)) {
+                    expected.merge(key, delta, Double::sum);
+                } else if (expected.size() < 50) {
+                    expected.put(key, delta);
+                } else {
+                    int min = expected.entrySet().stream()
+                            .min(Map.Entry.comparingByValue())
+                            .orElseThrow()
+                            .getKey();
+                    if (delta > expected.get(min)) {
+                        expected.remove(min);
+                        expected.put(key, delta);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, Double> actual = new HashMap<>();
+        heap.forEach(actual::put);
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((key, score) -> assertEquals(score, actual.get(key), 1e-6));
+        int[] sorted = heap.sortedKeys();
+        for (int i = 1; i < sorted.length; i++) {
+            assertEquals(true, actual.get(sorted[i - 1]) >= actual.get(sorted[i]));
+        }
+    }
+
+}